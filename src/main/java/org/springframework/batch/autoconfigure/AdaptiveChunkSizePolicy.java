@@ -0,0 +1,183 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.time.Duration;
+
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.context.RepeatContextSupport;
+import org.springframework.batch.repeat.policy.CompletionPolicySupport;
+import org.springframework.util.Assert;
+
+/**
+ * Completion policy that sizes each chunk so that reading, processing, writing and
+ * committing it takes about a target latency. It must also be registered as a
+ * {@link ChunkListener} of the step, so that it can time the chunks.
+ *
+ * The time per item is tracked as a moving average over the completed chunks, and the
+ * next chunks get the number of items expected to take the target latency, within the
+ * configured bounds. To avoid oscillating, the size at most doubles or halves from one
+ * chunk to the next.
+ *
+ * A chunk keeps the size it started with, and chunks of a multi-threaded step are timed
+ * on their own threads.
+ *
+ * @author Michael Minella
+ */
+public class AdaptiveChunkSizePolicy extends CompletionPolicySupport implements ChunkListener {
+
+	/**
+	 * Weight of the last chunk in the moving average of the time per item.
+	 */
+	private static final double SMOOTHING = 0.3;
+
+	private final long targetNanos;
+
+	private final int minSize;
+
+	private final int maxSize;
+
+	private final ThreadLocal<Long> chunkStart = new ThreadLocal<>();
+
+	private final ThreadLocal<SizedRepeatContext> chunk = new ThreadLocal<>();
+
+	private volatile int size;
+
+	private double nanosPerItem = -1;
+
+	private long chunks;
+
+	private long items;
+
+	/**
+	 * @param targetLatency the target time to complete a chunk
+	 * @param minSize the smallest chunk size
+	 * @param maxSize the largest chunk size
+	 * @param initialSize the size of the first chunks
+	 */
+	public AdaptiveChunkSizePolicy(Duration targetLatency, int minSize, int maxSize, int initialSize) {
+		Assert.isTrue(targetLatency != null && !targetLatency.isNegative() && !targetLatency.isZero(),
+				"The target latency must be positive");
+		Assert.isTrue(minSize > 0, "The minimum chunk size must be greater than zero");
+		Assert.isTrue(maxSize >= minSize, "The maximum chunk size must not be smaller than the minimum");
+
+		this.targetNanos = targetLatency.toNanos();
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.size = Math.max(minSize, Math.min(maxSize, initialSize));
+	}
+
+	/**
+	 * @return the size of the next chunk
+	 */
+	public int getSize() {
+		return this.size;
+	}
+
+	/**
+	 * @return the moving average of the time per item, in nanoseconds, or -1 before the
+	 * first chunk completed
+	 */
+	public synchronized double getNanosPerItem() {
+		return this.nanosPerItem;
+	}
+
+	/**
+	 * @return the number of chunks timed
+	 */
+	public synchronized long getChunks() {
+		return this.chunks;
+	}
+
+	/**
+	 * @return the number of items in the chunks timed
+	 */
+	public synchronized long getItems() {
+		return this.items;
+	}
+
+	@Override
+	public RepeatContext start(RepeatContext parent) {
+		SizedRepeatContext context = new SizedRepeatContext(parent, this.size);
+		this.chunk.set(context);
+
+		return context;
+	}
+
+	@Override
+	public boolean isComplete(RepeatContext context) {
+		return context.getStartedCount() >= ((SizedRepeatContext) context).size;
+	}
+
+	@Override
+	public void beforeChunk(ChunkContext context) {
+		this.chunkStart.set(System.nanoTime());
+	}
+
+	@Override
+	public void afterChunk(ChunkContext context) {
+		Long start = this.chunkStart.get();
+		SizedRepeatContext chunk = this.chunk.get();
+		this.chunkStart.remove();
+		this.chunk.remove();
+
+		if(start != null && chunk != null) {
+			adjust(System.nanoTime() - start, chunk.getStartedCount());
+		}
+	}
+
+	@Override
+	public void afterChunkError(ChunkContext context) {
+		this.chunkStart.remove();
+		this.chunk.remove();
+	}
+
+	/**
+	 * Records a completed chunk and computes the size of the next ones.
+	 *
+	 * @param elapsedNanos the time the chunk took
+	 * @param itemCount the number of items in the chunk
+	 */
+	synchronized void adjust(long elapsedNanos, int itemCount) {
+		if(itemCount <= 0) {
+			return;
+		}
+
+		double chunkNanosPerItem = (double) elapsedNanos / itemCount;
+
+		this.nanosPerItem = this.nanosPerItem < 0 ? chunkNanosPerItem :
+				SMOOTHING * chunkNanosPerItem + (1 - SMOOTHING) * this.nanosPerItem;
+		this.chunks++;
+		this.items += itemCount;
+
+		long ideal = this.nanosPerItem > 0 ? (long) (this.targetNanos / this.nanosPerItem) : this.maxSize;
+		long next = Math.max(this.size / 2, Math.min((long) this.size * 2, ideal));
+
+		this.size = (int) Math.max(this.minSize, Math.min(this.maxSize, next));
+	}
+
+	private static class SizedRepeatContext extends RepeatContextSupport {
+
+		private final int size;
+
+		SizedRepeatContext(RepeatContext parent, int size) {
+			super(parent);
+			this.size = size;
+		}
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.util.concurrent.Future;
+
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ItemProcessor} that hands every item to its delegate on a task executor and
+ * returns immediately with a {@link Future} of the result, so that the processing of
+ * the items of a chunk overlaps. It must be paired with an {@link AsyncItemWriter},
+ * which waits for the results in order.
+ *
+ * The step context of the calling thread is made available to the delegate, so step
+ * scoped beans can be used while processing.
+ *
+ * @author Michael Minella
+ */
+public class AsyncItemProcessor<I, O> implements ItemProcessor<I, Future<O>> {
+
+	private final ItemProcessor<I, O> delegate;
+
+	private final AsyncTaskExecutor taskExecutor;
+
+	public AsyncItemProcessor(ItemProcessor<I, O> delegate, AsyncTaskExecutor taskExecutor) {
+		Assert.notNull(delegate, "A delegate is required");
+		Assert.notNull(taskExecutor, "A task executor is required");
+
+		this.delegate = delegate;
+		this.taskExecutor = taskExecutor;
+	}
+
+	@Override
+	public Future<O> process(I item) {
+		StepContext stepContext = StepSynchronizationManager.getContext();
+		StepExecution stepExecution = stepContext != null ? stepContext.getStepExecution() : null;
+
+		return this.taskExecutor.submit(() -> {
+			if(stepExecution == null) {
+				return this.delegate.process(item);
+			}
+
+			StepSynchronizationManager.register(stepExecution);
+
+			try {
+				return this.delegate.process(item);
+			}
+			finally {
+				StepSynchronizationManager.close();
+			}
+		});
+	}
+}
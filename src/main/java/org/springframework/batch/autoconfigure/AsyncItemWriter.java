@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ItemWriter} that waits for the results of an {@link AsyncItemProcessor} in the
+ * order of the items, and writes them with its delegate. Items filtered by the
+ * processor ({@code null} results) are left out. When processing an item failed, its
+ * exception is rethrown as is, so that skip and retry policies see the original cause,
+ * and the processing of the other items of the chunk is cancelled.
+ *
+ * Stream callbacks are passed on to the delegate if it is an {@link ItemStream}.
+ *
+ * @author Michael Minella
+ */
+public class AsyncItemWriter<T> implements ItemStreamWriter<Future<T>> {
+
+	private final ItemWriter<T> delegate;
+
+	public AsyncItemWriter(ItemWriter<T> delegate) {
+		Assert.notNull(delegate, "A delegate is required");
+
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void write(List<? extends Future<T>> items) throws Exception {
+		List<T> results = new ArrayList<>(items.size());
+
+		for (Future<T> future : items) {
+			T result;
+
+			try {
+				result = future.get();
+			}
+			catch (ExecutionException e) {
+				cancel(items);
+				Throwable cause = e.getCause();
+
+				if(cause instanceof Exception) {
+					throw (Exception) cause;
+				}
+
+				throw e;
+			}
+			catch (InterruptedException | RuntimeException e) {
+				cancel(items);
+				throw e;
+			}
+
+			if(result != null) {
+				results.add(result);
+			}
+		}
+
+		if(!results.isEmpty()) {
+			this.delegate.write(results);
+		}
+	}
+
+	/**
+	 * Stops processing the rest of a chunk that failed, so that it does not keep the
+	 * processor threads from the next chunks.
+	 */
+	private void cancel(List<? extends Future<T>> items) {
+		for (Future<T> future : items) {
+			future.cancel(true);
+		}
+	}
+
+	@Override
+	public void open(ExecutionContext executionContext) throws ItemStreamException {
+		if(this.delegate instanceof ItemStream) {
+			((ItemStream) this.delegate).open(executionContext);
+		}
+	}
+
+	@Override
+	public void update(ExecutionContext executionContext) throws ItemStreamException {
+		if(this.delegate instanceof ItemStream) {
+			((ItemStream) this.delegate).update(executionContext);
+		}
+	}
+
+	@Override
+	public void close() throws ItemStreamException {
+		if(this.delegate instanceof ItemStream) {
+			((ItemStream) this.delegate).close();
+		}
+	}
+}
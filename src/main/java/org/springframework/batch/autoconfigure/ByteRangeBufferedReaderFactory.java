@@ -0,0 +1,228 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.springframework.batch.item.file.BufferedReaderFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+/**
+ * {@link BufferedReaderFactory} that only exposes the lines between a start (inclusive)
+ * and end (exclusive) byte position of a file. The range is expected to be aligned to
+ * line boundaries, as produced by the {@link FlatFilePartitioner}.
+ *
+ * Lines are split on the raw bytes of the file so that the exact byte position of every
+ * line is known, which requires an encoding in which line feeds and carriage returns
+ * are single bytes that do not occur within other characters (UTF-8, ISO-8859-1, etc).
+ *
+ * @author Michael Minella
+ */
+public class ByteRangeBufferedReaderFactory implements BufferedReaderFactory {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final long startPosition;
+
+	private final long endPosition;
+
+	public ByteRangeBufferedReaderFactory(long startPosition, long endPosition) {
+		Assert.isTrue(startPosition >= 0, "The start position must not be negative");
+		Assert.isTrue(endPosition >= startPosition, "The end position must not be before the start position");
+
+		this.startPosition = startPosition;
+		this.endPosition = endPosition;
+	}
+
+	@Override
+	public ByteRangeBufferedReader create(Resource resource, String encoding) throws IOException {
+		Charset charset = Charset.forName(encoding);
+
+		Assert.state(Arrays.equals("\r\n".getBytes(charset), new byte[] {'\r', '\n'}),
+				"Reading by byte position is not supported for the encoding " + encoding);
+
+		FileChannel channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ);
+
+		return new ByteRangeBufferedReader(channel, charset, this.startPosition, this.endPosition);
+	}
+
+	/**
+	 * {@link BufferedReader} that tracks the byte position of the lines it returns. Only
+	 * {@link #readLine()} and {@link #close()} are supported. Lines are terminated by a
+	 * line feed, a carriage return or a carriage return followed by a line feed.
+	 */
+	public static class ByteRangeBufferedReader extends BufferedReader {
+
+		private final FileChannel channel;
+
+		private final Charset charset;
+
+		private final long endPosition;
+
+		private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+		private byte[] lineBytes = new byte[256];
+
+		private long position;
+
+		private long channelPosition;
+
+		private int lineCount;
+
+		ByteRangeBufferedReader(FileChannel channel, Charset charset, long startPosition, long endPosition) {
+			super(new StringReader(""), 1);
+
+			this.channel = channel;
+			this.charset = charset;
+			this.endPosition = endPosition;
+			this.position = startPosition;
+			this.channelPosition = startPosition;
+			this.buffer.flip();
+		}
+
+		/**
+		 * @return the byte position of the first line that has not been read yet
+		 */
+		public long getPosition() {
+			return this.position;
+		}
+
+		/**
+		 * @return the number of lines returned since the reader was created
+		 */
+		public int getLineCount() {
+			return this.lineCount;
+		}
+
+		@Override
+		public String readLine() throws IOException {
+			if(this.position >= this.endPosition) {
+				return null;
+			}
+
+			byte[] bytes = this.buffer.array();
+			int pending = 0;
+			boolean consumed = false;
+
+			while (true) {
+				if(!this.buffer.hasRemaining() && !fill()) {
+					return consumed ? line(this.lineBytes, 0, pending) : null;
+				}
+
+				consumed = true;
+
+				int start = this.buffer.position();
+				int limit = this.buffer.limit();
+				int end = start;
+
+				while (end < limit && bytes[end] != '\n' && bytes[end] != '\r') {
+					end++;
+				}
+
+				this.position += end - start;
+
+				if(end == limit) {
+					pending = append(bytes, start, end - start, pending);
+					this.buffer.position(end);
+					continue;
+				}
+
+				String line;
+
+				if(pending == 0) {
+					line = line(bytes, start, end - start);
+				}
+				else {
+					pending = append(bytes, start, end - start, pending);
+					line = line(this.lineBytes, 0, pending);
+				}
+
+				this.buffer.position(end + 1);
+				this.position++;
+
+				if(bytes[end] == '\r' && (this.buffer.hasRemaining() || fill()) && bytes[this.buffer.position()] == '\n') {
+					this.buffer.position(this.buffer.position() + 1);
+					this.position++;
+				}
+
+				return line;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.channel.close();
+		}
+
+		private String line(byte[] bytes, int offset, int length) {
+			this.lineCount++;
+
+			return new String(bytes, offset, length, this.charset);
+		}
+
+		private int append(byte[] bytes, int offset, int length, int pending) {
+			if(this.lineBytes.length < pending + length) {
+				this.lineBytes = Arrays.copyOf(this.lineBytes, Math.max(pending + length, this.lineBytes.length * 2));
+			}
+
+			System.arraycopy(bytes, offset, this.lineBytes, pending, length);
+
+			return pending + length;
+		}
+
+		private boolean fill() throws IOException {
+			this.buffer.clear();
+			int read = read(this.buffer);
+			this.buffer.flip();
+
+			return read > 0;
+		}
+
+		/**
+		 * Reads the next bytes of the range into the buffer.
+		 *
+		 * @param target the buffer to fill
+		 * @return the number of bytes read, or -1 at the end of the range
+		 */
+		protected int read(ByteBuffer target) throws IOException {
+			long remaining = this.endPosition - this.channelPosition;
+
+			if(remaining <= 0) {
+				return -1;
+			}
+
+			if(remaining < target.remaining()) {
+				target.limit(target.position() + (int) remaining);
+			}
+
+			int read = this.channel.read(target, this.channelPosition);
+
+			if(read > 0) {
+				this.channelPosition += read;
+			}
+
+			return read;
+		}
+	}
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ItemProcessor} that remembers what its delegate did to a record, keyed by
+ * some fields of the record, and does the same to later records with the same key
+ * without calling the delegate. It suits lookup processors that enrich records with
+ * reference data, and requires that the changes the delegate makes depend only on the
+ * key fields.
+ *
+ * On a miss, the fields the delegate added, changed or removed are recorded, or the
+ * fact that it filtered the record. On a hit, they are applied to the record in place.
+ *
+ * The cache holds at most {@code maxSize} keys, evicting the least recently used, and
+ * entries optionally expire after a time to live. It is split in independently locked
+ * segments so that the threads of a multi-threaded step rarely contend. Two threads
+ * missing the same key at once both call the delegate.
+ *
+ * @author Michael Minella
+ */
+public class CachingItemProcessor implements ItemProcessor<Map<Object, Object>, Map<Object, Object>> {
+
+	private static final int SEGMENTS = 16;
+
+	private final ItemProcessor<Map<Object, Object>, Map<Object, Object>> delegate;
+
+	private final String[] keyFields;
+
+	private final long ttlNanos;
+
+	private final Segment[] segments;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * @param delegate the processor to cache the effects of
+	 * @param keyFields the fields the effects of the delegate depend on
+	 * @param maxSize the maximum number of keys cached
+	 * @param ttl the time after which an entry expires, or {@code null} for none
+	 */
+	public CachingItemProcessor(ItemProcessor<Map<Object, Object>, Map<Object, Object>> delegate,
+			List<String> keyFields, int maxSize, Duration ttl) {
+		Assert.notNull(delegate, "A delegate is required");
+		Assert.notEmpty(keyFields, "At least one key field is required");
+		Assert.isTrue(maxSize > 0, "The maximum size must be greater than zero");
+
+		this.delegate = delegate;
+		this.keyFields = keyFields.toArray(new String[0]);
+		this.ttlNanos = ttl != null ? ttl.toNanos() : 0;
+
+		int segmentCount = Math.min(SEGMENTS, maxSize);
+		this.segments = new Segment[segmentCount];
+
+		for (int i = 0; i < segmentCount; i++) {
+			this.segments[i] = new Segment((maxSize + segmentCount - 1 - i) / segmentCount);
+		}
+	}
+
+	public long getHits() {
+		return this.hits.sum();
+	}
+
+	public long getMisses() {
+		return this.misses.sum();
+	}
+
+	public long getEvictions() {
+		return this.evictions.sum();
+	}
+
+	public int getSize() {
+		int size = 0;
+
+		for (Segment segment : this.segments) {
+			size += segment.size();
+		}
+
+		return size;
+	}
+
+	@Override
+	public Map<Object, Object> process(Map<Object, Object> item) throws Exception {
+		Object key = key(item);
+		Segment segment = this.segments[(Objects.hashCode(key) & Integer.MAX_VALUE) % this.segments.length];
+		long now = this.ttlNanos > 0 ? System.nanoTime() : 0;
+
+		Effect effect = segment.get(key, now);
+
+		if(effect != null) {
+			this.hits.increment();
+
+			return effect.applyTo(item);
+		}
+
+		this.misses.increment();
+
+		Map<Object, Object> original = new HashMap<>(item);
+		Map<Object, Object> result = this.delegate.process(item);
+
+		segment.put(key, new Effect(original, result, now + this.ttlNanos));
+
+		return result;
+	}
+
+	private Object key(Map<Object, Object> item) {
+		if(this.keyFields.length == 1) {
+			return item.get(this.keyFields[0]);
+		}
+
+		Object[] values = new Object[this.keyFields.length];
+
+		for (int i = 0; i < values.length; i++) {
+			values[i] = item.get(this.keyFields[i]);
+		}
+
+		return Arrays.asList(values);
+	}
+
+	/**
+	 * The changes the delegate made to a record, or the fact that it filtered it.
+	 */
+	private static class Effect {
+
+		private final boolean filtered;
+
+		private final Map<Object, Object> changed = new HashMap<>();
+
+		private final List<Object> removed = new ArrayList<>();
+
+		private final long expiry;
+
+		Effect(Map<Object, Object> original, Map<Object, Object> result, long expiry) {
+			this.filtered = result == null;
+			this.expiry = expiry;
+
+			if(result != null) {
+				for (Map.Entry<Object, Object> entry : result.entrySet()) {
+					if(!Objects.equals(original.get(entry.getKey()), entry.getValue())) {
+						this.changed.put(entry.getKey(), entry.getValue());
+					}
+				}
+
+				for (Object key : original.keySet()) {
+					if(!result.containsKey(key)) {
+						this.removed.add(key);
+					}
+				}
+			}
+		}
+
+		Map<Object, Object> applyTo(Map<Object, Object> item) {
+			if(this.filtered) {
+				return null;
+			}
+
+			for (Object key : this.removed) {
+				item.remove(key);
+			}
+
+			item.putAll(this.changed);
+
+			return item;
+		}
+	}
+
+	/**
+	 * Part of the cache, in least recently used order.
+	 */
+	private class Segment {
+
+		private final Map<Object, Effect> entries;
+
+		Segment(int maxSize) {
+			this.entries = new LinkedHashMap<Object, Effect>(16, 0.75f, true) {
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Object, Effect> eldest) {
+					if(size() > maxSize) {
+						evictions.increment();
+
+						return true;
+					}
+
+					return false;
+				}
+			};
+		}
+
+		synchronized Effect get(Object key, long now) {
+			Effect effect = this.entries.get(key);
+
+			if(effect != null && ttlNanos > 0 && now - effect.expiry >= 0) {
+				this.entries.remove(key);
+
+				return null;
+			}
+
+			return effect;
+		}
+
+		synchronized void put(Object key, Effect effect) {
+			this.entries.put(key, effect);
+		}
+
+		synchronized int size() {
+			return this.entries.size();
+		}
+	}
+}
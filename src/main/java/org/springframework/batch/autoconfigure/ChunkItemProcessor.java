@@ -0,0 +1,36 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.util.List;
+
+/**
+ * Processor called once per chunk with all of its items, for processing that is
+ * cheaper in bulk, such as a single {@code IN (...)} lookup for the whole chunk.
+ *
+ * @author Michael Minella
+ */
+@FunctionalInterface
+public interface ChunkItemProcessor<I, O> {
+
+	/**
+	 * @param items the items of a chunk, in the order they were read
+	 * @return the items to write, which may leave out items to filter them
+	 * @throws Exception if the chunk can not be processed, which fails the chunk as a
+	 * write error would
+	 */
+	List<O> process(List<? extends I> items) throws Exception;
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.util.List;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
+
+/**
+ * {@link ItemWriter} that passes each chunk through a {@link ChunkItemProcessor}
+ * before writing the result with its delegate, so the processor runs once per chunk,
+ * in the chunk transaction.
+ *
+ * Stream callbacks are passed on to the delegate if it is an {@link ItemStream}.
+ *
+ * @author Michael Minella
+ */
+public class ChunkProcessingItemWriter<I, O> implements ItemStreamWriter<I> {
+
+	private final ChunkItemProcessor<I, O> processor;
+
+	private final ItemWriter<O> delegate;
+
+	public ChunkProcessingItemWriter(ChunkItemProcessor<I, O> processor, ItemWriter<O> delegate) {
+		Assert.notNull(processor, "A processor is required");
+		Assert.notNull(delegate, "A delegate is required");
+
+		this.processor = processor;
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void write(List<? extends I> items) throws Exception {
+		List<O> processed = this.processor.process(items);
+
+		if(!CollectionUtils.isEmpty(processed)) {
+			this.delegate.write(processed);
+		}
+	}
+
+	@Override
+	public void open(ExecutionContext executionContext) throws ItemStreamException {
+		if(this.delegate instanceof ItemStream) {
+			((ItemStream) this.delegate).open(executionContext);
+		}
+	}
+
+	@Override
+	public void update(ExecutionContext executionContext) throws ItemStreamException {
+		if(this.delegate instanceof ItemStream) {
+			((ItemStream) this.delegate).update(executionContext);
+		}
+	}
+
+	@Override
+	public void close() throws ItemStreamException {
+		if(this.delegate instanceof ItemStream) {
+			((ItemStream) this.delegate).close();
+		}
+	}
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Type of a column read from a file. Values are converted once when the line is
+ * parsed, and the writers bind them with the matching typed JDBC setter instead of
+ * leaving the conversion to the driver. Empty values are converted to {@code null}
+ * for all types but {@link #STRING}.
+ *
+ * Dates and timestamps use the ISO formats ({@code 2019-06-30} and
+ * {@code 2019-06-30T12:00:00}).
+ *
+ * @author Michael Minella
+ */
+public enum ColumnType {
+
+	STRING(Types.VARCHAR) {
+
+		@Override
+		Object convert(String value) {
+			return value;
+		}
+
+		@Override
+		public Object parse(String value) {
+			return value;
+		}
+
+		@Override
+		void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+			ps.setString(index, (String) value);
+		}
+	},
+
+	INTEGER(Types.INTEGER) {
+
+		@Override
+		Object convert(String value) {
+			return Integer.parseInt(value);
+		}
+
+		@Override
+		public Object parse(char[] chars, int start, int end) {
+			if(start == end) {
+				return null;
+			}
+
+			long value = parseLong(chars, start, end);
+
+			if(value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+				throw new NumberFormatException("Value out of range for an integer: " + new String(chars, start, end - start));
+			}
+
+			return (int) value;
+		}
+
+		@Override
+		void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+			ps.setInt(index, (Integer) value);
+		}
+	},
+
+	LONG(Types.BIGINT) {
+
+		@Override
+		Object convert(String value) {
+			return Long.parseLong(value);
+		}
+
+		@Override
+		public Object parse(char[] chars, int start, int end) {
+			return start == end ? null : parseLong(chars, start, end);
+		}
+
+		@Override
+		void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+			ps.setLong(index, (Long) value);
+		}
+	},
+
+	DOUBLE(Types.DOUBLE) {
+
+		@Override
+		Object convert(String value) {
+			return Double.parseDouble(value);
+		}
+
+		@Override
+		void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+			ps.setDouble(index, (Double) value);
+		}
+	},
+
+	DECIMAL(Types.DECIMAL) {
+
+		@Override
+		Object convert(String value) {
+			return new BigDecimal(value);
+		}
+
+		@Override
+		public Object parse(char[] chars, int start, int end) {
+			return start == end ? null : new BigDecimal(chars, start, end - start);
+		}
+
+		@Override
+		void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+			ps.setBigDecimal(index, (BigDecimal) value);
+		}
+	},
+
+	BOOLEAN(Types.BOOLEAN) {
+
+		@Override
+		Object convert(String value) {
+			if("true".equalsIgnoreCase(value)) {
+				return Boolean.TRUE;
+			}
+			else if("false".equalsIgnoreCase(value)) {
+				return Boolean.FALSE;
+			}
+
+			throw new IllegalArgumentException("Invalid boolean value: " + value);
+		}
+
+		@Override
+		void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+			ps.setBoolean(index, (Boolean) value);
+		}
+	},
+
+	DATE(Types.DATE) {
+
+		@Override
+		Object convert(String value) {
+			return LocalDate.parse(value);
+		}
+
+		@Override
+		void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+			ps.setDate(index, Date.valueOf((LocalDate) value));
+		}
+	},
+
+	TIMESTAMP(Types.TIMESTAMP) {
+
+		@Override
+		Object convert(String value) {
+			return LocalDateTime.parse(value);
+		}
+
+		@Override
+		void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+			ps.setTimestamp(index, Timestamp.valueOf((LocalDateTime) value));
+		}
+	};
+
+	private final int sqlType;
+
+	ColumnType(int sqlType) {
+		this.sqlType = sqlType;
+	}
+
+	/**
+	 * @return the {@link Types SQL type} of the column
+	 */
+	public int getSqlType() {
+		return this.sqlType;
+	}
+
+	/**
+	 * @param value the trimmed value of the column
+	 * @return the converted value, or {@code null} if the value is empty
+	 */
+	public Object parse(String value) {
+		return value.isEmpty() ? null : convert(value);
+	}
+
+	/**
+	 * Converts the characters between {@code start} (inclusive) and {@code end}
+	 * (exclusive) without creating a string where the type allows it.
+	 *
+	 * @return the converted value, or {@code null} if the value is empty
+	 */
+	public Object parse(char[] chars, int start, int end) {
+		return parse(new String(chars, start, end - start));
+	}
+
+	/**
+	 * Binds a value of this type to a statement parameter.
+	 *
+	 * @param ps the statement
+	 * @param index the index of the parameter, starting at 1
+	 * @param value a value produced by this type, or {@code null}
+	 */
+	public void setParameter(PreparedStatement ps, int index, Object value) throws SQLException {
+		if(value == null) {
+			ps.setNull(index, this.sqlType);
+		}
+		else {
+			bind(ps, index, value);
+		}
+	}
+
+	abstract Object convert(String value);
+
+	abstract void bind(PreparedStatement ps, int index, Object value) throws SQLException;
+
+	/**
+	 * @param value a value
+	 * @return the type that produces values of the same class, or {@code null} if
+	 * there is none
+	 */
+	public static ColumnType of(Object value) {
+		if(value instanceof String) {
+			return STRING;
+		}
+		else if(value instanceof Long) {
+			return LONG;
+		}
+		else if(value instanceof BigDecimal) {
+			return DECIMAL;
+		}
+		else if(value instanceof Integer) {
+			return INTEGER;
+		}
+		else if(value instanceof Double) {
+			return DOUBLE;
+		}
+		else if(value instanceof Boolean) {
+			return BOOLEAN;
+		}
+		else if(value instanceof LocalDate) {
+			return DATE;
+		}
+		else if(value instanceof LocalDateTime) {
+			return TIMESTAMP;
+		}
+
+		return null;
+	}
+
+	/**
+	 * @param sqlType a {@link Types SQL type}, as reported by the parameter metadata of
+	 * a statement
+	 * @return the type whose values bind to parameters of the SQL type, or {@code null}
+	 * if there is none
+	 */
+	public static ColumnType forSqlType(int sqlType) {
+		switch (sqlType) {
+			case Types.CHAR:
+			case Types.VARCHAR:
+			case Types.LONGVARCHAR:
+			case Types.NCHAR:
+			case Types.NVARCHAR:
+			case Types.LONGNVARCHAR:
+				return STRING;
+			case Types.TINYINT:
+			case Types.SMALLINT:
+			case Types.INTEGER:
+				return INTEGER;
+			case Types.BIGINT:
+				return LONG;
+			case Types.REAL:
+			case Types.FLOAT:
+			case Types.DOUBLE:
+				return DOUBLE;
+			case Types.NUMERIC:
+			case Types.DECIMAL:
+				return DECIMAL;
+			case Types.BIT:
+			case Types.BOOLEAN:
+				return BOOLEAN;
+			case Types.DATE:
+				return DATE;
+			case Types.TIMESTAMP:
+				return TIMESTAMP;
+			default:
+				return null;
+		}
+	}
+
+	private static long parseLong(char[] chars, int start, int end) {
+		boolean negative = chars[start] == '-';
+		int i = (negative || chars[start] == '+') ? start + 1 : start;
+
+		if(i == end) {
+			throw new NumberFormatException("Invalid number: " + new String(chars, start, end - start));
+		}
+
+		// accumulated negatively to cover Long.MIN_VALUE, as Long.parseLong does
+		long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		long multiplyLimit = limit / 10;
+		long result = 0;
+
+		for (; i < end; i++) {
+			int digit = chars[i] - '0';
+
+			if(digit < 0 || digit > 9 || result < multiplyLimit || result * 10 < limit + digit) {
+				throw new NumberFormatException("Invalid number: " + new String(chars, start, end - start));
+			}
+
+			result = result * 10 - digit;
+		}
+
+		return negative ? result : -result;
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ItemWriter} that collapses the items of a chunk with the same key to the last
+ * of them before writing the chunk with its delegate, typically with an upsert. The
+ * remaining items keep the position of the first item of their key.
+ *
+ * The items are indexed by the positions of their key fields in an open addressing
+ * table of ints, so no key object is created per item.
+ *
+ * The dropped items are counted as written by the step. Stream and step callbacks, and
+ * the destruction of the delegate, are passed on to it.
+ *
+ * @author Michael Minella
+ */
+public class DeduplicatingItemWriter implements ItemStreamWriter<Map<Object, Object>>, StepExecutionListener,
+		DisposableBean {
+
+	private final ItemWriter<Map<Object, Object>> delegate;
+
+	private final IndexedRecord.Projection keyFields;
+
+	/**
+	 * @param delegate the writer of the deduplicated chunks
+	 * @param keyFields the fields identifying the items
+	 */
+	public DeduplicatingItemWriter(ItemWriter<Map<Object, Object>> delegate, String[] keyFields) {
+		Assert.notNull(delegate, "A delegate is required");
+		Assert.notEmpty(keyFields, "At least one key field is required");
+
+		this.delegate = delegate;
+		this.keyFields = new IndexedRecord.Projection(keyFields);
+	}
+
+	@Override
+	public void write(List<? extends Map<Object, Object>> items) throws Exception {
+		this.delegate.write(items.size() > 1 ? deduplicate(items) : items);
+	}
+
+	/**
+	 * @return the last item of each key, in the order of the first item of each key
+	 */
+	List<? extends Map<Object, Object>> deduplicate(List<? extends Map<Object, Object>> items) {
+		// a power of two at least twice the number of items, so probes stay short
+		int[] table = new int[Integer.highestOneBit(items.size() * 2 - 1) << 1];
+		int mask = table.length - 1;
+		List<Map<Object, Object>> unique = new ArrayList<>(items.size());
+
+		for (Map<Object, Object> item : items) {
+			int slot = this.keyFields.hash(item) & mask;
+
+			while (true) {
+				// positions are stored plus one, zero marks an empty slot
+				int position = table[slot] - 1;
+
+				if(position < 0) {
+					table[slot] = unique.size() + 1;
+					unique.add(item);
+					break;
+				}
+				else if(this.keyFields.equals(unique.get(position), item)) {
+					unique.set(position, item);
+					break;
+				}
+
+				slot = (slot + 1) & mask;
+			}
+		}
+
+		return unique.size() < items.size() ? unique : items;
+	}
+
+	@Override
+	public void open(ExecutionContext executionContext) throws ItemStreamException {
+		if(this.delegate instanceof ItemStream) {
+			((ItemStream) this.delegate).open(executionContext);
+		}
+	}
+
+	@Override
+	public void update(ExecutionContext executionContext) throws ItemStreamException {
+		if(this.delegate instanceof ItemStream) {
+			((ItemStream) this.delegate).update(executionContext);
+		}
+	}
+
+	@Override
+	public void close() throws ItemStreamException {
+		if(this.delegate instanceof ItemStream) {
+			((ItemStream) this.delegate).close();
+		}
+	}
+
+	@Override
+	public void beforeStep(StepExecution stepExecution) {
+		if(this.delegate instanceof StepExecutionListener) {
+			((StepExecutionListener) this.delegate).beforeStep(stepExecution);
+		}
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution stepExecution) {
+		if(this.delegate instanceof StepExecutionListener) {
+			return ((StepExecutionListener) this.delegate).afterStep(stepExecution);
+		}
+
+		return null;
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if(this.delegate instanceof DisposableBean) {
+			((DisposableBean) this.delegate).destroy();
+		}
+	}
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+
+import org.springframework.batch.item.file.LineMapper;
+import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.batch.item.file.transform.IncorrectTokenCountException;
+import org.springframework.util.Assert;
+
+/**
+ * {@link LineMapper} for lines separated by a single character delimiter that tokenizes
+ * and maps in one pass. Each line is copied into a reusable buffer and scanned once to
+ * record the offsets of the fields, and strings are only created for the fields that
+ * are mapped to a name. No intermediate token list or
+ * {@link org.springframework.batch.item.file.transform.FieldSet} is built.
+ *
+ * Tokenizing follows the rules of a strict {@link DelimitedLineTokenizer}: delimiters
+ * within quotes are ignored, quoted fields are unquoted with doubled quotes collapsed,
+ * and the number of included fields must match the number of names. Values are trimmed
+ * as they would be by the default field set mapper.
+ *
+ * When column types are given, values are converted straight from the line buffer.
+ * Empty typed values are left out of the record. An optional {@link RecordFilter} is
+ * checked against the offsets of the fields before any value is created.
+ *
+ * Instances keep per-line state and are not thread-safe.
+ *
+ * @author Michael Minella
+ */
+public class FastDelimitedLineMapper implements LineMapper<Map<Object, Object>> {
+
+	private final char delimiter;
+
+	private final char quoteCharacter;
+
+	private final String[] names;
+
+	private final IndexedRecord.Schema schema;
+
+	private final ColumnType[] types;
+
+	/**
+	 * Position of each raw field in the output, or -1 for fields that are not included.
+	 * {@code null} when all fields are included.
+	 */
+	private final int[] slots;
+
+	private final int[] starts;
+
+	private final int[] ends;
+
+	private RecordFilter filter;
+
+	private char[] buffer = new char[256];
+
+	private int valueStart;
+
+	private int valueEnd;
+
+	public FastDelimitedLineMapper(char delimiter, char quoteCharacter, String[] names,
+			List<Integer> includedFields, boolean indexedRecords) {
+		this(delimiter, quoteCharacter, names, includedFields, indexedRecords, null);
+	}
+
+	/**
+	 * @param types the types of the named fields, or {@code null} to read all values as
+	 * strings
+	 */
+	public FastDelimitedLineMapper(char delimiter, char quoteCharacter, String[] names,
+			List<Integer> includedFields, boolean indexedRecords, ColumnType[] types) {
+		Assert.notEmpty(names, "At least one name is required");
+		Assert.isTrue(types == null || types.length == names.length, "The number of types must match the number of names");
+
+		this.delimiter = delimiter;
+		this.quoteCharacter = quoteCharacter;
+		this.names = names.clone();
+		this.types = types != null ? types.clone() : null;
+		this.schema = indexedRecords ? new IndexedRecord.Schema(names, types) : null;
+		this.starts = new int[names.length];
+		this.ends = new int[names.length];
+
+		if(includedFields == null || includedFields.isEmpty()) {
+			this.slots = null;
+		}
+		else {
+			// Included fields are emitted in the order they appear in the line
+			TreeSet<Integer> included = new TreeSet<>(includedFields);
+			this.slots = new int[included.last() + 1];
+			Arrays.fill(this.slots, -1);
+
+			int slot = 0;
+			for (Integer field : included) {
+				this.slots[field] = slot++;
+			}
+		}
+	}
+
+	/**
+	 * @param filter the filter lines must match, checked before the record is built.
+	 * {@link RecordFilter#FILTERED} is returned for other lines.
+	 */
+	public void setFilter(RecordFilter filter) {
+		this.filter = filter;
+	}
+
+	/**
+	 * @param delimiter the configured delimiter
+	 * @return true if lines using the delimiter can be handled by this mapper
+	 */
+	public static boolean supports(String delimiter) {
+		return delimiter != null && delimiter.length() == 1;
+	}
+
+	@Override
+	public Map<Object, Object> mapLine(String line, int lineNumber) {
+		int length = line.length();
+
+		if(this.buffer.length < length) {
+			this.buffer = new char[Math.max(length, this.buffer.length * 2)];
+		}
+
+		line.getChars(0, length, this.buffer, 0);
+
+		int tokens = tokenize(this.buffer, length);
+
+		if(tokens != this.names.length) {
+			throw new IncorrectTokenCountException(this.names.length, tokens, line);
+		}
+
+		if(this.filter != null && !accept()) {
+			return RecordFilter.FILTERED;
+		}
+
+		Object[] values = new Object[tokens];
+
+		for (int i = 0; i < tokens; i++) {
+			values[i] = value(i, this.types != null ? this.types[i] : null);
+		}
+
+		return record(values);
+	}
+
+	/**
+	 * Records the start (inclusive) and end (exclusive) offsets of the included fields.
+	 *
+	 * @return the number of included fields found in the line
+	 */
+	private int tokenize(char[] chars, int length) {
+		boolean inQuoted = false;
+		int fieldStart = 0;
+		int field = 0;
+		int tokens = 0;
+
+		for (int i = 0; i < length; i++) {
+			char current = chars[i];
+			boolean isEnd = i == length - 1;
+			boolean isDelimiter = current == this.delimiter;
+
+			if((isDelimiter && !inQuoted) || isEnd) {
+				int fieldEnd = isDelimiter ? i : length;
+				tokens = addToken(field++, fieldStart, fieldEnd, tokens);
+
+				if(isEnd && isDelimiter) {
+					tokens = addToken(field++, length, length, tokens);
+				}
+
+				fieldStart = i + 1;
+			}
+			else if(current == this.quoteCharacter) {
+				inQuoted = !inQuoted;
+			}
+		}
+
+		return tokens;
+	}
+
+	private int addToken(int field, int start, int end, int tokens) {
+		int slot;
+
+		if(this.slots == null) {
+			slot = field;
+		}
+		else if(field < this.slots.length && this.slots[field] >= 0) {
+			slot = this.slots[field];
+		}
+		else {
+			return tokens;
+		}
+
+		if(slot < this.names.length) {
+			this.starts[slot] = start;
+			this.ends[slot] = end;
+		}
+
+		return tokens + 1;
+	}
+
+	private Object value(int slot, ColumnType type) {
+		if(bounds(slot)) {
+			String value = unescape(this.valueStart, this.valueEnd).trim();
+
+			return type != null ? type.parse(value) : value;
+		}
+
+		if(type != null) {
+			return type.parse(this.buffer, this.valueStart, this.valueEnd);
+		}
+
+		return new String(this.buffer, this.valueStart, this.valueEnd - this.valueStart);
+	}
+
+	private boolean accept() {
+		for (int i = 0; i < this.filter.size(); i++) {
+			int slot = this.filter.getField(i);
+			boolean matches;
+
+			if(bounds(slot)) {
+				matches = this.filter.matches(i, unescape(this.valueStart, this.valueEnd).trim());
+			}
+			else {
+				matches = this.filter.matches(i, this.buffer, this.valueStart, this.valueEnd);
+			}
+
+			if(!matches) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Sets {@code valueStart} and {@code valueEnd} to the trimmed and unquoted bounds of
+	 * the value of a field.
+	 *
+	 * @return true if the value contains escaped quotes and must be unescaped, in which
+	 * case the bounds are not trimmed within the quotes
+	 */
+	private boolean bounds(int slot) {
+		char[] chars = this.buffer;
+		int start = this.starts[slot];
+		int end = this.ends[slot];
+
+		while (start < end && chars[start] <= ' ') {
+			start++;
+		}
+		while (end > start && chars[end - 1] <= ' ') {
+			end--;
+		}
+
+		if(end - start >= 2 && chars[start] == this.quoteCharacter && chars[end - 1] == this.quoteCharacter) {
+			start++;
+			end--;
+
+			for (int i = start; i < end - 1; i++) {
+				if(chars[i] == this.quoteCharacter && chars[i + 1] == this.quoteCharacter) {
+					this.valueStart = start;
+					this.valueEnd = end;
+					return true;
+				}
+			}
+
+			while (start < end && chars[start] <= ' ') {
+				start++;
+			}
+			while (end > start && chars[end - 1] <= ' ') {
+				end--;
+			}
+		}
+
+		this.valueStart = start;
+		this.valueEnd = end;
+
+		return false;
+	}
+
+	private String unescape(int start, int end) {
+		StringBuilder value = new StringBuilder(end - start);
+
+		for (int i = start; i < end; i++) {
+			char current = this.buffer[i];
+			value.append(current);
+
+			if(current == this.quoteCharacter && i + 1 < end && this.buffer[i + 1] == this.quoteCharacter) {
+				i++;
+			}
+		}
+
+		return value.toString();
+	}
+
+	private Map<Object, Object> record(Object[] values) {
+		if(this.schema != null) {
+			return new IndexedRecord(this.schema, values);
+		}
+
+		Properties properties = new Properties();
+
+		for (int i = 0; i < values.length; i++) {
+			if(values[i] != null) {
+				properties.put(this.names[i], values[i]);
+			}
+		}
+
+		return properties;
+	}
+}
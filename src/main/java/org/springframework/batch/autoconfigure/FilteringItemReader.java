@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.util.Map;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ItemStreamReader} that reads past the lines its delegate reports as
+ * {@link RecordFilter#FILTERED}. Every filtered line is still a read of the delegate,
+ * so the delegate's item count and restart state keep counting lines.
+ *
+ * @author Michael Minella
+ */
+public class FilteringItemReader implements ItemStreamReader<Map<Object, Object>> {
+
+	private final ItemStreamReader<Map<Object, Object>> delegate;
+
+	public FilteringItemReader(ItemStreamReader<Map<Object, Object>> delegate) {
+		Assert.notNull(delegate, "A delegate is required");
+
+		this.delegate = delegate;
+	}
+
+	@Override
+	public Map<Object, Object> read() throws Exception {
+		Map<Object, Object> item;
+
+		do {
+			item = this.delegate.read();
+		}
+		while (item == RecordFilter.FILTERED);
+
+		return item;
+	}
+
+	@Override
+	public void open(ExecutionContext executionContext) throws ItemStreamException {
+		this.delegate.open(executionContext);
+	}
+
+	@Override
+	public void update(ExecutionContext executionContext) throws ItemStreamException {
+		this.delegate.update(executionContext);
+	}
+
+	@Override
+	public void close() throws ItemStreamException {
+		this.delegate.close();
+	}
+}
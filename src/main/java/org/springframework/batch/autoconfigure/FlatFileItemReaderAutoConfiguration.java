@@ -15,20 +15,52 @@
  */
 package org.springframework.batch.autoconfigure;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.file.LineMapper;
 import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
+import org.springframework.batch.item.file.mapping.DefaultLineMapper;
 import org.springframework.batch.item.file.mapping.FieldSetMapper;
+import org.springframework.batch.item.file.transform.AbstractLineTokenizer;
+import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
 import org.springframework.batch.item.file.transform.FieldSet;
+import org.springframework.batch.item.file.transform.FixedLengthTokenizer;
 import org.springframework.batch.item.file.transform.Range;
+import org.springframework.batch.item.file.transform.RangeArrayPropertyEditor;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.batch.BatchAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.NoneNestedConditions;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
+import org.springframework.boot.context.properties.ConfigurationPropertiesBinding;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.ConditionContext;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.validation.BindException;
 
 /**
  * @author Michael Minella
@@ -44,38 +76,361 @@ public class FlatFileItemReaderAutoConfiguration {
 		this.properties = properties;
 	}
 
+	@Bean
+	@ConfigurationPropertiesBinding
+	public static RangeConverter rangeConverter() {
+		return new RangeConverter();
+	}
+
+	@Bean
+	@StepScope
+	@ConditionalOnMissingBean
+	@ConditionalOnProperty(prefix = "spring.batch.job.filereader", name = {"name", "resources"})
+	public ItemStreamReader<Map<Object, Object>> multiFileItemReader(
+			@Value("#{stepExecutionContext['" + MultiFilePartitioner.RESOURCE_KEY + "']}") Resource resource) throws Exception {
+		return filtered(fileItemReader(resource, this.properties.getFilters()), this.properties.getFilters());
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnProperty(prefix = "spring.batch.job.filereader", name = {"name", "resources"})
+	public Partitioner multiFilePartitioner(ResourceLoader resourceLoader) {
+		assertSinglePartitioning();
+
+		return new MultiFilePartitioner(ResourcePatternUtils.getResourcePatternResolver(resourceLoader),
+				this.properties.getResources());
+	}
+
+	@Bean
+	@StepScope
+	@ConditionalOnMissingBean
+	@ConditionalOnProperty(prefix = "spring.batch.job.filereader", name = {"name", "partitions"})
+	public ItemStreamReader<Map<Object, Object>> partitionedItemReader(
+			@Value("#{stepExecutionContext['" + FlatFilePartitioner.START_POSITION_KEY + "']}") Long startPosition,
+			@Value("#{stepExecutionContext['" + FlatFilePartitioner.END_POSITION_KEY + "']}") Long endPosition) throws Exception {
+		Resource resource = this.properties.getResource();
+		List<RecordFilter.Condition> filters = this.properties.getFilters();
+
+		if(isMemoryMapped(resource)) {
+			return filtered(mappedItemReader(resource, startPosition, endPosition, 0, filters), filters);
+		}
+		else if(this.properties.isSeekOnRestart()) {
+			return filtered(seekableItemReader(resource, startPosition, endPosition, 0, filters), filters);
+		}
+
+		FlatFileItemReader<Map<Object, Object>> reader = itemReaderBuilder(resource, filters)
+				.linesToSkip(0)
+				.build();
+
+		reader.setBufferedReaderFactory(new ByteRangeBufferedReaderFactory(startPosition, endPosition));
+
+		return filtered(reader, filters);
+	}
+
 	@Bean
 	@ConditionalOnMissingBean
+	@ConditionalOnProperty(prefix = "spring.batch.job.filereader", name = {"name", "partitions"})
+	public Partitioner filePartitioner() {
+		assertSinglePartitioning();
+		Assert.state(!isCompressed(this.properties.getResource()), "Compressed resources can not be partitioned");
+
+		FlatFilePartitioner partitioner = new FlatFilePartitioner(this.properties.getResource(),
+				this.properties.getPartitions(),
+				this.properties.getLinesToSkip());
+
+		if(isMemoryMapped(this.properties.getResource())) {
+			partitioner.setRecordLength(this.properties.getRecordLength());
+		}
+
+		return partitioner;
+	}
+
+	@Bean
+	@StepScope
+	@ConditionalOnMissingBean
+	@ConditionalOnProperty(prefix = "spring.batch.job.filereader", name = {"name", "key-ranges"})
+	public ItemStreamReader<Map<Object, Object>> keyRangeItemReader(
+			@Value("#{stepExecutionContext['" + KeyRangePartitioner.MIN_KEY + "']}") String min,
+			@Value("#{stepExecutionContext['" + KeyRangePartitioner.MAX_KEY + "']}") String max) throws Exception {
+		Assert.hasText(this.properties.getKeyField(), "A key field is required to partition by key ranges");
+
+		RecordFilter.Condition range = new RecordFilter.Condition();
+		range.setField(this.properties.getKeyField());
+		range.setMin(min);
+		range.setMax(max);
+
+		List<RecordFilter.Condition> filters = new ArrayList<>(this.properties.getFilters());
+		filters.add(range);
+
+		return filtered(fileItemReader(this.properties.getResource(), filters), filters);
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnProperty(prefix = "spring.batch.job.filereader", name = {"name", "key-ranges"})
+	public Partitioner keyRangePartitioner() {
+		assertSinglePartitioning();
+
+		return new KeyRangePartitioner(this.properties.getKeyRanges());
+	}
+
+	@Bean
+	@ConditionalOnMissingBean(ItemStreamReader.class)
 	@ConditionalOnProperty(prefix = "spring.batch.job.filereader", name = "name")
-	public FlatFileItemReader<Map<Object, Object>> itemReader() {
-		FlatFileItemReaderBuilder<Map<Object, Object>> mapFlatFileItemReaderBuilder = new FlatFileItemReaderBuilder<Map<Object, Object>>()
+	@Conditional(FlatFileReaderCondition.class)
+	public FlatFileItemReader<Map<Object, Object>> itemReader() throws Exception {
+		return flatFileItemReader(this.properties.getResource(), this.properties.getFilters());
+	}
+
+	/**
+	 * The reader when records are filtered or memory-mapped, which is not a
+	 * {@link FlatFileItemReader}.
+	 */
+	@Bean(name = "itemReader")
+	@ConditionalOnMissingBean
+	@ConditionalOnProperty(prefix = "spring.batch.job.filereader", name = "name")
+	@Conditional(WrappedReaderCondition.class)
+	public ItemStreamReader<Map<Object, Object>> wrappedItemReader() throws Exception {
+		return filtered(fileItemReader(this.properties.getResource(), this.properties.getFilters()), this.properties.getFilters());
+	}
+
+	private AbstractItemCountingItemStreamItemReader<Map<Object, Object>> fileItemReader(Resource resource,
+			List<RecordFilter.Condition> filters) throws Exception {
+		if(isMemoryMapped(resource)) {
+			return mappedItemReader(resource, 0, Long.MAX_VALUE, this.properties.getLinesToSkip(), filters);
+		}
+
+		return flatFileItemReader(resource, filters);
+	}
+
+	private FlatFileItemReader<Map<Object, Object>> flatFileItemReader(Resource resource,
+			List<RecordFilter.Condition> filters) throws Exception {
+		if(this.properties.isSeekOnRestart() || isCompressed(resource)) {
+			return seekableItemReader(resource, 0, Long.MAX_VALUE, this.properties.getLinesToSkip(), filters);
+		}
+
+		return itemReaderBuilder(resource, filters).build();
+	}
+
+	private FlatFileItemReaderBuilder<Map<Object, Object>> itemReaderBuilder(Resource resource,
+			List<RecordFilter.Condition> filters) {
+		return new FlatFileItemReaderBuilder<Map<Object, Object>>()
 				.name(this.properties.getName())
-				.resource(this.properties.getResource())
+				.resource(resource)
 				.saveState(this.properties.isSaveState())
 				.maxItemCount(this.properties.getMaxItemCount())
 				.currentItemCount(this.properties.getCurrentItemCount())
 				.strict(this.properties.isStrict())
 				.encoding(this.properties.getEncoding())
-				.linesToSkip(this.properties.getLinesToSkip());
+				.linesToSkip(this.properties.getLinesToSkip())
+				.lineMapper(lineMapper(filters));
+	}
+
+	private SeekableFlatFileItemReader<Map<Object, Object>> seekableItemReader(Resource resource, long startPosition,
+			long endPosition, int linesToSkip, List<RecordFilter.Condition> filters) throws Exception {
+		SeekableFlatFileItemReader<Map<Object, Object>> reader = new SeekableFlatFileItemReader<>(startPosition, endPosition);
+
+		reader.setName(this.properties.getName());
+		reader.setResource(resource);
+		reader.setSaveState(this.properties.isSaveState());
+		reader.setMaxItemCount(this.properties.getMaxItemCount());
+		reader.setCurrentItemCount(this.properties.getCurrentItemCount());
+		reader.setStrict(this.properties.isStrict());
+		reader.setEncoding(this.properties.getEncoding());
+		reader.setLinesToSkip(linesToSkip);
+		reader.setLineMapper(lineMapper(filters));
+		reader.setCompressed(isCompressed(resource));
+		reader.setDecompressionThreads(this.properties.getDecompressionThreads());
+		reader.afterPropertiesSet();
+
+		return reader;
+	}
+
+	private MappedFixedLengthItemReader mappedItemReader(Resource resource, long startPosition, long endPosition,
+			int linesToSkip, List<RecordFilter.Condition> filters) {
+		MappedFixedLengthItemReader reader = new MappedFixedLengthItemReader(startPosition, endPosition);
+
+		reader.setName(this.properties.getName());
+		reader.setResource(resource);
+		reader.setSaveState(this.properties.isSaveState());
+		reader.setMaxItemCount(this.properties.getMaxItemCount());
+		reader.setCurrentItemCount(this.properties.getCurrentItemCount());
+		reader.setEncoding(this.properties.getEncoding());
+		reader.setLinesToSkip(linesToSkip);
+		reader.setRecordLength(this.properties.getRecordLength());
+		reader.setStrict(this.properties.isParsingStrict());
+		reader.setRanges(this.properties.getRanges().toArray(new Range[0]));
+		reader.setNames(this.properties.getNames());
+		reader.setIndexedRecords(this.properties.isIndexedRecords());
+		reader.setTypes(columnTypes());
+		reader.setFilter(recordFilter(filters));
+		reader.afterPropertiesSet();
+
+		return reader;
+	}
+
+	private boolean isMemoryMapped(Resource resource) {
+		return this.properties.isMemoryMapped() && !this.properties.isDelimited() && !isCompressed(resource);
+	}
+
+	/**
+	 * Each partitioning option registers its own partitioner and worker reader, so only
+	 * one of them may be set.
+	 */
+	private void assertSinglePartitioning() {
+		int options = (StringUtils.hasText(this.properties.getResources()) ? 1 : 0) +
+				(this.properties.getPartitions() != null ? 1 : 0) +
+				(!this.properties.getKeyRanges().isEmpty() ? 1 : 0);
+
+		Assert.state(options <= 1, "Only one of spring.batch.job.filereader.resources, " +
+				"spring.batch.job.filereader.partitions and spring.batch.job.filereader.key-ranges can be set");
+	}
+
+	private boolean isCompressed(Resource resource) {
+		if(this.properties.getCompressed() != null) {
+			return this.properties.getCompressed();
+		}
+
+		return GzipBufferedReaderFactory.isCompressed(resource);
+	}
+
+	private LineMapper<Map<Object, Object>> lineMapper(List<RecordFilter.Condition> filters) {
+		if(this.properties.isDelimited() && FastDelimitedLineMapper.supports(this.properties.getDelimiter())) {
+			FastDelimitedLineMapper lineMapper = new FastDelimitedLineMapper(this.properties.getDelimiter().charAt(0),
+					this.properties.getQuoteCharacter(),
+					this.properties.getNames(),
+					this.properties.getIncludedFields(),
+					this.properties.isIndexedRecords(),
+					columnTypes());
+			lineMapper.setFilter(recordFilter(filters));
+
+			return lineMapper;
+		}
+
+		AbstractLineTokenizer lineTokenizer;
 
 		if(this.properties.isDelimited()) {
-			mapFlatFileItemReaderBuilder.delimited()
-					.quoteCharacter(this.properties.getQuoteCharacter())
-					.delimiter(this.properties.getDelimiter())
-					.includedFields(this.properties.getIncludedFields().toArray(new Integer[0]))
-					.names(this.properties.getNames())
-					.beanMapperStrict(this.properties.isParsingStrict())
-					.fieldSetMapper(new MapFieldSetMapper());
+			DelimitedLineTokenizer delimitedLineTokenizer = new DelimitedLineTokenizer(this.properties.getDelimiter());
+			delimitedLineTokenizer.setQuoteCharacter(this.properties.getQuoteCharacter());
+
+			if(!this.properties.getIncludedFields().isEmpty()) {
+				delimitedLineTokenizer.setIncludedFields(this.properties.getIncludedFields().stream()
+						.mapToInt(Integer::intValue)
+						.toArray());
+			}
+
+			lineTokenizer = delimitedLineTokenizer;
 		}
 		else {
-			mapFlatFileItemReaderBuilder.fixedLength()
-				.columns(this.properties.getRanges().toArray(new Range[0]))
-				.names(this.properties.getNames())
-				.fieldSetMapper(new MapFieldSetMapper())
-				.beanMapperStrict(this.properties.isParsingStrict());
+			FixedLengthTokenizer fixedLengthTokenizer = new FixedLengthTokenizer();
+			fixedLengthTokenizer.setColumns(this.properties.getRanges().toArray(new Range[0]));
+
+			lineTokenizer = fixedLengthTokenizer;
 		}
 
-		return mapFlatFileItemReaderBuilder.build();
+		lineTokenizer.setNames(this.properties.getNames());
+
+		DefaultLineMapper<Map<Object, Object>> lineMapper = new DefaultLineMapper<>();
+		lineMapper.setLineTokenizer(lineTokenizer);
+		RecordFilter recordFilter = recordFilter(filters);
+
+		if(recordFilter != null) {
+			lineMapper.setFieldSetMapper(new FilteringFieldSetMapper(recordFilter, fieldSetMapper()));
+		}
+		else {
+			lineMapper.setFieldSetMapper(fieldSetMapper());
+		}
+
+		return lineMapper;
+	}
+
+	private FieldSetMapper<Map<Object, Object>> fieldSetMapper() {
+		if(this.properties.isIndexedRecords()) {
+			return new IndexedRecordFieldSetMapper(this.properties.getNames(), columnTypes());
+		}
+		else if(!this.properties.getTypes().isEmpty()) {
+			return new TypedMapFieldSetMapper(this.properties.getNames(), columnTypes());
+		}
+
+		return new MapFieldSetMapper();
+	}
+
+	private ItemStreamReader<Map<Object, Object>> filtered(ItemStreamReader<Map<Object, Object>> reader,
+			List<RecordFilter.Condition> filters) {
+		return filters.isEmpty() ? reader : new FilteringItemReader(reader);
+	}
+
+	private RecordFilter recordFilter(List<RecordFilter.Condition> filters) {
+		if(filters.isEmpty()) {
+			return null;
+		}
+
+		return new RecordFilter(this.properties.getNames(), filters);
+	}
+
+	/**
+	 * @return the configured types in the order of the names, or {@code null} if no
+	 * types are configured
+	 */
+	private ColumnType[] columnTypes() {
+		Map<String, ColumnType> types = this.properties.getTypes();
+
+		if(types.isEmpty()) {
+			return null;
+		}
+
+		String[] names = this.properties.getNames();
+		Assert.notEmpty(names, "Names are required to declare column types");
+
+		List<String> unknown = new ArrayList<>(types.keySet());
+		unknown.removeAll(Arrays.asList(names));
+		Assert.isTrue(unknown.isEmpty(), "Types are declared for unknown columns: " + unknown);
+
+		ColumnType[] columnTypes = new ColumnType[names.length];
+
+		for (int i = 0; i < names.length; i++) {
+			columnTypes[i] = types.getOrDefault(names[i], ColumnType.STRING);
+		}
+
+		return columnTypes;
+	}
+
+	/**
+	 * Matches when the reader is wrapped to filter records or is memory-mapped, from the
+	 * bound properties, as the type of the reader bean must be known before it is
+	 * created.
+	 */
+	static class WrappedReaderCondition extends SpringBootCondition {
+
+		private static final String PREFIX = "spring.batch.job.filereader.";
+
+		@Override
+		public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+			Binder binder = Binder.get(context.getEnvironment());
+
+			if(!binder.bind(PREFIX + "filters", Bindable.listOf(RecordFilter.Condition.class))
+					.orElse(Collections.emptyList()).isEmpty()) {
+				return ConditionOutcome.match("records are filtered");
+			}
+
+			if(binder.bind(PREFIX + "memory-mapped", Boolean.class).orElse(false) &&
+					!binder.bind(PREFIX + "delimited", Boolean.class).orElse(false)) {
+				return ConditionOutcome.match("records are memory-mapped");
+			}
+
+			return ConditionOutcome.noMatch("records are read by a FlatFileItemReader");
+		}
+	}
+
+	static class FlatFileReaderCondition extends NoneNestedConditions {
+
+		FlatFileReaderCondition() {
+			super(ConfigurationPhase.REGISTER_BEAN);
+		}
+
+		@Conditional(WrappedReaderCondition.class)
+		static class WrappedReader {
+		}
 	}
 
 	public static class MapFieldSetMapper implements FieldSetMapper<Map<Object, Object>> {
@@ -85,4 +440,110 @@ public class FlatFileItemReaderAutoConfiguration {
 			return fieldSet.getProperties();
 		}
 	}
+
+	/**
+	 * Checks the raw values of a line against a {@link RecordFilter} and only maps the
+	 * lines that match.
+	 */
+	public static class FilteringFieldSetMapper implements FieldSetMapper<Map<Object, Object>> {
+
+		private final RecordFilter filter;
+
+		private final FieldSetMapper<Map<Object, Object>> delegate;
+
+		public FilteringFieldSetMapper(RecordFilter filter, FieldSetMapper<Map<Object, Object>> delegate) {
+			this.filter = filter;
+			this.delegate = delegate;
+		}
+
+		@Override
+		public Map<Object, Object> mapFieldSet(FieldSet fieldSet) throws BindException {
+			for (int i = 0; i < this.filter.size(); i++) {
+				if(!this.filter.matches(i, fieldSet.readString(this.filter.getField(i)))) {
+					return RecordFilter.FILTERED;
+				}
+			}
+
+			return this.delegate.mapFieldSet(fieldSet);
+		}
+	}
+
+	/**
+	 * Maps each line to {@link Properties} with the values converted to the configured
+	 * column types. Empty typed values are left out.
+	 */
+	public static class TypedMapFieldSetMapper implements FieldSetMapper<Map<Object, Object>> {
+
+		private final String[] names;
+
+		private final ColumnType[] types;
+
+		public TypedMapFieldSetMapper(String[] names, ColumnType[] types) {
+			this.names = names;
+			this.types = types;
+		}
+
+		@Override
+		public Map<Object, Object> mapFieldSet(FieldSet fieldSet) {
+			Properties properties = new Properties();
+			int fieldCount = Math.min(this.names.length, fieldSet.getFieldCount());
+
+			for (int i = 0; i < fieldCount; i++) {
+				Object value = this.types[i].parse(fieldSet.readString(i));
+
+				if(value != null) {
+					properties.put(this.names[i], value);
+				}
+			}
+
+			return properties;
+		}
+	}
+
+	/**
+	 * Maps each line to an {@link IndexedRecord} that shares a single schema built from
+	 * the configured names.
+	 */
+	public static class IndexedRecordFieldSetMapper implements FieldSetMapper<Map<Object, Object>> {
+
+		private final IndexedRecord.Schema schema;
+
+		public IndexedRecordFieldSetMapper(String[] names) {
+			this(names, null);
+		}
+
+		public IndexedRecordFieldSetMapper(String[] names, ColumnType[] types) {
+			this.schema = new IndexedRecord.Schema(names, types);
+		}
+
+		@Override
+		public Map<Object, Object> mapFieldSet(FieldSet fieldSet) {
+			Object[] values = new Object[this.schema.size()];
+			int fieldCount = Math.min(values.length, fieldSet.getFieldCount());
+
+			for (int i = 0; i < fieldCount; i++) {
+				ColumnType type = this.schema.getType(i);
+				values[i] = type != null ? type.parse(fieldSet.readString(i)) : fieldSet.readString(i);
+			}
+
+			return new IndexedRecord(this.schema, values);
+		}
+	}
+
+	/**
+	 * Converts range properties such as {@code 1-5} or {@code 6} into {@link Range}s.
+	 */
+	public static class RangeConverter implements Converter<String, Range> {
+
+		@Override
+		public Range convert(String source) {
+			RangeArrayPropertyEditor editor = new RangeArrayPropertyEditor();
+			editor.setAsText(source);
+
+			Range[] ranges = (Range[]) editor.getValue();
+			Assert.isTrue(ranges.length == 1, "Invalid range: " + source);
+
+			return ranges[0];
+		}
+	}
 }
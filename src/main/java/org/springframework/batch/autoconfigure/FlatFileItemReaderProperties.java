@@ -16,7 +16,9 @@
 package org.springframework.batch.autoconfigure;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.batch.item.file.FlatFileItemReader;
 import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
@@ -44,6 +46,8 @@ public class FlatFileItemReaderProperties {
 
 	private Resource resource;
 
+	private String resources;
+
 	private boolean strict = true;
 
 	private String encoding = FlatFileItemReader.DEFAULT_CHARSET;
@@ -72,8 +76,30 @@ public class FlatFileItemReaderProperties {
 
 	private String[] names;
 
+	private Map<String, ColumnType> types = new LinkedHashMap<>();
+
+	private List<RecordFilter.Condition> filters = new ArrayList<>();
+
 	private boolean parsingStrict = true;
 
+	private Integer partitions;
+
+	private String keyField;
+
+	private List<String> keyRanges = new ArrayList<>();
+
+	private boolean indexedRecords = false;
+
+	private boolean seekOnRestart = false;
+
+	private boolean memoryMapped = false;
+
+	private int recordLength = 0;
+
+	private Boolean compressed;
+
+	private int decompressionThreads = Math.min(4, Runtime.getRuntime().availableProcessors());
+
 	public boolean isSaveState() {
 		return saveState;
 	}
@@ -202,6 +228,9 @@ public class FlatFileItemReaderProperties {
 		this.names = names;
 	}
 
+	/**
+	 * @return true to require that the ranges cover each memory-mapped record exactly
+	 */
 	public boolean isParsingStrict() {
 		return parsingStrict;
 	}
@@ -209,4 +238,100 @@ public class FlatFileItemReaderProperties {
 	public void setParsingStrict(boolean parsingStrict) {
 		this.parsingStrict = parsingStrict;
 	}
+
+	public Integer getPartitions() {
+		return partitions;
+	}
+
+	public void setPartitions(Integer partitions) {
+		this.partitions = partitions;
+	}
+
+	public boolean isIndexedRecords() {
+		return indexedRecords;
+	}
+
+	public void setIndexedRecords(boolean indexedRecords) {
+		this.indexedRecords = indexedRecords;
+	}
+
+	public boolean isSeekOnRestart() {
+		return seekOnRestart;
+	}
+
+	public void setSeekOnRestart(boolean seekOnRestart) {
+		this.seekOnRestart = seekOnRestart;
+	}
+
+	public boolean isMemoryMapped() {
+		return memoryMapped;
+	}
+
+	public void setMemoryMapped(boolean memoryMapped) {
+		this.memoryMapped = memoryMapped;
+	}
+
+	public int getRecordLength() {
+		return recordLength;
+	}
+
+	public void setRecordLength(int recordLength) {
+		this.recordLength = recordLength;
+	}
+
+	public Boolean getCompressed() {
+		return compressed;
+	}
+
+	public void setCompressed(Boolean compressed) {
+		this.compressed = compressed;
+	}
+
+	public int getDecompressionThreads() {
+		return decompressionThreads;
+	}
+
+	public void setDecompressionThreads(int decompressionThreads) {
+		this.decompressionThreads = decompressionThreads;
+	}
+
+	public String getResources() {
+		return resources;
+	}
+
+	public void setResources(String resources) {
+		this.resources = resources;
+	}
+
+	public Map<String, ColumnType> getTypes() {
+		return types;
+	}
+
+	public void setTypes(Map<String, ColumnType> types) {
+		this.types = types;
+	}
+
+	public List<RecordFilter.Condition> getFilters() {
+		return filters;
+	}
+
+	public void setFilters(List<RecordFilter.Condition> filters) {
+		this.filters = filters;
+	}
+
+	public String getKeyField() {
+		return keyField;
+	}
+
+	public void setKeyField(String keyField) {
+		this.keyField = keyField;
+	}
+
+	public List<String> getKeyRanges() {
+		return keyRanges;
+	}
+
+	public void setKeyRanges(List<String> keyRanges) {
+		this.keyRanges = keyRanges;
+	}
 }
@@ -15,20 +15,26 @@
  */
 package org.springframework.batch.autoconfigure;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
 import java.util.Map;
 
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.item.ItemStreamException;
 import org.springframework.batch.item.file.FlatFileItemWriter;
 import org.springframework.batch.item.file.builder.FlatFileItemWriterBuilder;
 import org.springframework.batch.item.file.transform.FieldExtractor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.batch.BatchAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.util.StringUtils;
 
 /**
  * @author Michael Minella
@@ -44,14 +50,37 @@ public class FlatFileItemWriterAutoConfiguration {
 		this.properties = properties;
 	}
 
+	/**
+	 * When the step is partitioned, every worker gets its own writer, with its own restart
+	 * state, writing to its own file. The name of the partition is inserted before the
+	 * extension of the configured resource, so {@code out.csv} becomes
+	 * {@code out-partition0.csv}.
+	 */
+	@Bean
+	@StepScope
+	@ConditionalOnMissingBean
+	@ConditionalOnProperty(prefix = "spring.batch.job.filewriter", name = "name")
+	@Conditional(OnPartitionedStepCondition.class)
+	public FlatFileItemWriter<Map<Object, Object>> partitionedItemWriter(
+			@Value("#{stepExecution.stepName}") String stepName) {
+		int separator = stepName.lastIndexOf(':');
+
+		return itemWriter(separator < 0 ? properties.getResource() :
+				partitionResource(properties.getResource(), stepName.substring(separator + 1)));
+	}
+
 	@Bean
 	@ConditionalOnMissingBean
 	@ConditionalOnProperty(prefix = "spring.batch.job.filewriter", name = "name")
 	public FlatFileItemWriter<Map<Object, Object>> itemWriter() {
+		return itemWriter(properties.getResource());
+	}
+
+	private FlatFileItemWriter<Map<Object, Object>> itemWriter(Resource resource) {
 
 		return new FlatFileItemWriterBuilder<Map<Object, Object>>()
 				.name(properties.getName())
-				.resource(properties.getResource())
+				.resource(resource)
 				.delimited()
 				.delimiter(properties.getDelimiter())
 				.fieldExtractor(new MapFieldExtractor(properties.getNames()))
@@ -59,24 +88,53 @@ public class FlatFileItemWriterAutoConfiguration {
 				.build();
 	}
 
+	private static Resource partitionResource(Resource resource, String partitionName) {
+		String filename = resource.getFilename();
+		String extension = StringUtils.getFilenameExtension(filename);
+		String partitionFilename = StringUtils.stripFilenameExtension(filename) + "-" + partitionName +
+				(extension != null ? "." + extension : "");
+
+		try {
+			return resource.createRelative(partitionFilename);
+		}
+		catch (IOException e) {
+			throw new ItemStreamException("Unable to create the output file of " + partitionName, e);
+		}
+	}
+
+	/**
+	 * Matches when the file reader is configured to partition its input.
+	 */
+	static class OnPartitionedStepCondition extends AnyNestedCondition {
+
+		OnPartitionedStepCondition() {
+			super(ConfigurationPhase.REGISTER_BEAN);
+		}
+
+		@ConditionalOnProperty(prefix = "spring.batch.job.filereader", name = "partitions")
+		static class LineRanges {
+		}
+
+		@ConditionalOnProperty(prefix = "spring.batch.job.filereader", name = "resources")
+		static class Files {
+		}
+
+		@ConditionalOnProperty(prefix = "spring.batch.job.filereader", name = "key-ranges")
+		static class KeyRanges {
+		}
+	}
+
 	public static class MapFieldExtractor implements FieldExtractor<Map<Object, Object>> {
 
-		private String[] names;
+		private IndexedRecord.Projection projection;
 
 		public MapFieldExtractor(String[] names) {
-			this.names = names;
+			this.projection = new IndexedRecord.Projection(names);
 		}
 
 		@Override
 		public Object[] extract(Map<Object, Object> item) {
-
-			List<Object> fields = new ArrayList<>(item.size());
-
-			for (String name : names) {
-				fields.add(item.get(name));
-			}
-
-			return fields.toArray();
+			return this.projection.extract(item);
 		}
 	}
 }
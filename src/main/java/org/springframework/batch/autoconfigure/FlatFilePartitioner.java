@@ -0,0 +1,166 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+/**
+ * {@link Partitioner} that splits a single flat file into contiguous byte ranges. Every
+ * range starts at the beginning of a line and ends where the next range starts, so each
+ * line is read by exactly one partition. Header lines configured via
+ * {@code linesToSkip} are excluded from all ranges.
+ *
+ * When a record length is set, the file is treated as fixed length records without
+ * relying on line terminators and the ranges are aligned to record boundaries instead.
+ *
+ * The configured number of partitions is used in place of the grid size requested by
+ * the partition step, unless it is zero.
+ *
+ * @author Michael Minella
+ */
+public class FlatFilePartitioner implements Partitioner {
+
+	public static final String START_POSITION_KEY = "startPosition";
+
+	public static final String END_POSITION_KEY = "endPosition";
+
+	private static final String PARTITION_PREFIX = "partition";
+
+	private static final int SCAN_BUFFER_SIZE = 8192;
+
+	private final Resource resource;
+
+	private final int partitions;
+
+	private final int linesToSkip;
+
+	private int recordLength;
+
+	public FlatFilePartitioner(Resource resource, int partitions, int linesToSkip) {
+		Assert.notNull(resource, "A resource is required");
+		Assert.isTrue(partitions >= 0, "The number of partitions must not be negative");
+
+		this.resource = resource;
+		this.partitions = partitions;
+		this.linesToSkip = linesToSkip;
+	}
+
+	/**
+	 * @param recordLength the number of bytes per record, including any line terminator
+	 */
+	public void setRecordLength(int recordLength) {
+		this.recordLength = recordLength;
+	}
+
+	@Override
+	public Map<String, ExecutionContext> partition(int gridSize) {
+		int partitions = this.partitions > 0 ? this.partitions : gridSize;
+		Assert.isTrue(partitions > 0, "The grid size must be greater than zero");
+
+		Map<String, ExecutionContext> contexts = new LinkedHashMap<>(partitions);
+
+		try (FileChannel channel = FileChannel.open(this.resource.getFile().toPath(), StandardOpenOption.READ)) {
+			long length = channel.size();
+			long start = skipLines(channel, 0, this.linesToSkip);
+			long size = (length - start) / partitions;
+
+			if(this.recordLength > 0) {
+				size = ((length - start) / this.recordLength / partitions) * this.recordLength;
+			}
+
+			for (int i = 0; i < partitions && start < length; i++) {
+				long end;
+
+				if(i == partitions - 1) {
+					end = length;
+				}
+				else if(this.recordLength > 0) {
+					end = Math.min(start + Math.max(size, this.recordLength), length);
+				}
+				else {
+					end = nextLineStart(channel, start + Math.max(size, 1) - 1);
+				}
+
+				ExecutionContext context = new ExecutionContext();
+				context.putLong(START_POSITION_KEY, start);
+				context.putLong(END_POSITION_KEY, end);
+				context.putLong(LargestFirstPartitionHandler.SIZE_KEY, end - start);
+				contexts.put(PARTITION_PREFIX + i, context);
+
+				start = end;
+			}
+		}
+		catch (IOException e) {
+			throw new ItemStreamException("Unable to partition " + this.resource.getDescription(), e);
+		}
+
+		return contexts;
+	}
+
+	private long skipLines(FileChannel channel, long position, int lines) throws IOException {
+		for (int i = 0; i < lines; i++) {
+			long next = nextLineStart(channel, position);
+
+			if(next == channel.size() && this.recordLength > 0) {
+				// records are not terminated, so neither are the lines to skip
+				next = Math.min(position + this.recordLength, next);
+			}
+
+			position = next;
+		}
+
+		return position;
+	}
+
+	/**
+	 * Returns the position of the first byte following the next line feed at or after
+	 * the given position, or the size of the channel if there is none.
+	 */
+	private static long nextLineStart(FileChannel channel, long position) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+		long length = channel.size();
+
+		while (position < length) {
+			buffer.clear();
+			int read = channel.read(buffer, position);
+
+			if(read < 0) {
+				break;
+			}
+
+			for (int i = 0; i < read; i++) {
+				if(buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+
+			position += read;
+		}
+
+		return length;
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ItemProcessor} that runs a chain of stages in a single pass over each item.
+ * Each stage receives the record returned by the previous one, so stages that change
+ * the record in place and return it share one record without copies. The chain stops
+ * at the first stage that filters the item by returning {@code null}.
+ *
+ * {@link Function} stages are called directly rather than through a
+ * {@link org.springframework.batch.item.function.FunctionItemProcessor} each.
+ *
+ * @author Michael Minella
+ */
+public class FusedItemProcessor<T> implements ItemProcessor<T, T> {
+
+	private final ItemProcessor<T, T>[] stages;
+
+	/**
+	 * @param stages the stages, in order, each an {@link ItemProcessor} or a
+	 * {@link Function}
+	 */
+	@SuppressWarnings("unchecked")
+	public FusedItemProcessor(List<?> stages) {
+		Assert.notEmpty(stages, "At least one stage is required");
+
+		this.stages = new ItemProcessor[stages.size()];
+
+		for (int i = 0; i < this.stages.length; i++) {
+			Object stage = stages.get(i);
+
+			if(stage instanceof ItemProcessor) {
+				this.stages[i] = (ItemProcessor<T, T>) stage;
+			}
+			else if(stage instanceof Function) {
+				this.stages[i] = ((Function<T, T>) stage)::apply;
+			}
+			else {
+				throw new IllegalArgumentException("A stage must be either an ItemProcessor or a Function.  " +
+						"The stage found is a " + stage.getClass().toGenericString());
+			}
+		}
+	}
+
+	@Override
+	public T process(T item) throws Exception {
+		T result = item;
+
+		for (int i = 0; i < this.stages.length && result != null; i++) {
+			result = this.stages[i].process(result);
+		}
+
+		return result;
+	}
+}
@@ -0,0 +1,631 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import org.springframework.batch.item.file.BufferedReaderFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+/**
+ * {@link BufferedReaderFactory} for gzip compressed files that decompresses while
+ * reading. Files made of several gzip members are read member by member, and the
+ * position of the next line is tracked as the offset of its member in the compressed
+ * file plus the number of uncompressed bytes into that member.
+ *
+ * Block compressed files (BGZF), whose members record their compressed size in the
+ * header, are inflated in parallel on a small pool of threads and handed to the reader
+ * in order. Other files are inflated on the reading thread.
+ *
+ * The same encoding restrictions as for the {@link ByteRangeBufferedReaderFactory}
+ * apply.
+ *
+ * @author Michael Minella
+ */
+public class GzipBufferedReaderFactory implements BufferedReaderFactory {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final int FHCRC = 2;
+
+	private static final int FEXTRA = 4;
+
+	private static final int FNAME = 8;
+
+	private static final int FCOMMENT = 16;
+
+	private static final int TRAILER_LENGTH = 8;
+
+	private final long memberPosition;
+
+	private final long memberOffset;
+
+	private final int threads;
+
+	public GzipBufferedReaderFactory() {
+		this(0, 0, 1);
+	}
+
+	/**
+	 * @param memberPosition the position of the gzip member to start reading from
+	 * @param memberOffset the number of uncompressed bytes to skip in that member
+	 * @param threads the number of threads used to inflate block compressed files
+	 */
+	public GzipBufferedReaderFactory(long memberPosition, long memberOffset, int threads) {
+		Assert.isTrue(memberPosition >= 0 && memberOffset >= 0, "Invalid member position");
+		Assert.isTrue(threads > 0, "At least one thread is required");
+
+		this.memberPosition = memberPosition;
+		this.memberOffset = memberOffset;
+		this.threads = threads;
+	}
+
+	/**
+	 * @param resource the resource to check
+	 * @return true if the resource exists and starts with the gzip magic number
+	 */
+	public static boolean isCompressed(Resource resource) {
+		if(resource == null || !resource.exists()) {
+			return false;
+		}
+
+		try (InputStream inputStream = resource.getInputStream()) {
+			return inputStream.read() == 0x1f && inputStream.read() == 0x8b;
+		}
+		catch (IOException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public GzipBufferedReader create(Resource resource, String encoding) throws IOException {
+		Charset charset = Charset.forName(encoding);
+
+		Assert.state(Arrays.equals("\r\n".getBytes(charset), new byte[] {'\r', '\n'}),
+				"Reading compressed files is not supported for the encoding " + encoding);
+
+		FileChannel channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ);
+
+		try {
+			return new GzipBufferedReader(channel, charset, this.memberPosition, this.memberOffset, this.threads);
+		}
+		catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Reader of the lines of a gzip compressed file that tracks the member and the
+	 * offset within the member of the next line.
+	 */
+	public static class GzipBufferedReader extends ByteRangeBufferedReaderFactory.ByteRangeBufferedReader {
+
+		/**
+		 * Stream position and member position of the members that are still buffered,
+		 * oldest first.
+		 */
+		private final Deque<long[]> members = new ArrayDeque<>();
+
+		private final BlockSource source;
+
+		private Block block;
+
+		private int blockPosition;
+
+		private long skip;
+
+		private long streamPosition;
+
+		GzipBufferedReader(FileChannel channel, Charset charset, long memberPosition, long memberOffset,
+				int threads) throws IOException {
+			super(channel, charset, 0, Long.MAX_VALUE);
+
+			Header header = Header.read(channel, memberPosition);
+
+			if(header.blockSize > 0) {
+				this.source = new ParallelBlockSource(channel, memberPosition, threads);
+			}
+			else {
+				this.source = new SequentialBlockSource(channel, memberPosition);
+			}
+
+			this.skip = memberOffset;
+			this.streamPosition = -memberOffset;
+			this.members.addLast(new long[] {this.streamPosition, memberPosition});
+		}
+
+		/**
+		 * @return the position in the compressed file of the member containing the
+		 * first line that has not been read yet
+		 */
+		public long getMemberPosition() {
+			return currentMember()[1];
+		}
+
+		/**
+		 * @return the number of uncompressed bytes between the start of the member and
+		 * the first line that has not been read yet
+		 */
+		public long getMemberOffset() {
+			return getPosition() - currentMember()[0];
+		}
+
+		@Override
+		protected int read(ByteBuffer target) throws IOException {
+			while (this.block == null || this.blockPosition == this.block.length) {
+				if(!nextBlock()) {
+					return -1;
+				}
+			}
+
+			int length = Math.min(target.remaining(), this.block.length - this.blockPosition);
+			target.put(this.block.data, this.blockPosition, length);
+
+			this.blockPosition += length;
+			this.streamPosition += length;
+
+			return length;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				this.source.close();
+			}
+			finally {
+				super.close();
+			}
+		}
+
+		private boolean nextBlock() throws IOException {
+			this.block = this.source.next();
+			this.blockPosition = 0;
+
+			if(this.block == null) {
+				return false;
+			}
+
+			if(this.block.memberStart && this.block.memberPosition != this.members.getLast()[1]) {
+				this.members.addLast(new long[] {this.streamPosition, this.block.memberPosition});
+			}
+
+			if(this.skip > 0) {
+				int skipped = (int) Math.min(this.skip, this.block.length);
+				this.blockPosition = skipped;
+				this.streamPosition += skipped;
+				this.skip -= skipped;
+			}
+
+			return true;
+		}
+
+		private long[] currentMember() {
+			long position = getPosition();
+
+			while (this.members.size() > 1 && nextMemberStart() <= position) {
+				this.members.removeFirst();
+			}
+
+			return this.members.getFirst();
+		}
+
+		private long nextMemberStart() {
+			long[] first = this.members.removeFirst();
+			long start = this.members.getFirst()[0];
+			this.members.addFirst(first);
+
+			return start;
+		}
+	}
+
+	/**
+	 * Uncompressed data of a member, or of a part of a member for large members.
+	 */
+	private static class Block {
+
+		private final long memberPosition;
+
+		private final boolean memberStart;
+
+		private final byte[] data;
+
+		private final int length;
+
+		Block(long memberPosition, boolean memberStart, byte[] data, int length) {
+			this.memberPosition = memberPosition;
+			this.memberStart = memberStart;
+			this.data = data;
+			this.length = length;
+		}
+	}
+
+	private interface BlockSource {
+
+		/**
+		 * @return the next block, or null at the end of the file
+		 */
+		Block next() throws IOException;
+
+		void close();
+	}
+
+	/**
+	 * Inflates members of any size on the reading thread, one buffer at a time.
+	 */
+	private static class SequentialBlockSource implements BlockSource {
+
+		private final FileChannel channel;
+
+		private final Inflater inflater = new Inflater(true);
+
+		private final CRC32 crc = new CRC32();
+
+		private final ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE);
+
+		private long memberPosition;
+
+		private long inputPosition;
+
+		private boolean memberStart;
+
+		private boolean finished;
+
+		SequentialBlockSource(FileChannel channel, long memberPosition) throws IOException {
+			this.channel = channel;
+
+			startMember(memberPosition);
+		}
+
+		@Override
+		public Block next() throws IOException {
+			if(this.finished) {
+				return null;
+			}
+
+			byte[] data = new byte[BUFFER_SIZE];
+			int length = 0;
+
+			try {
+				while (length == 0) {
+					if(this.inflater.finished()) {
+						if(!finishMember()) {
+							return null;
+						}
+					}
+					else if(this.inflater.needsInput()) {
+						fillInput();
+					}
+					else if(this.inflater.needsDictionary()) {
+						throw new ZipException("Preset dictionaries are not supported");
+					}
+
+					length = this.inflater.inflate(data);
+				}
+			}
+			catch (DataFormatException e) {
+				throw new ZipException("Invalid compressed data in the member at " + this.memberPosition);
+			}
+
+			this.crc.update(data, 0, length);
+
+			Block block = new Block(this.memberPosition, this.memberStart, data, length);
+			this.memberStart = false;
+
+			return block;
+		}
+
+		@Override
+		public void close() {
+			this.inflater.end();
+		}
+
+		private void startMember(long position) throws IOException {
+			this.memberPosition = position;
+			this.memberStart = true;
+			this.inputPosition = position + Header.read(this.channel, position).length;
+			this.inflater.reset();
+			this.crc.reset();
+		}
+
+		/**
+		 * Checks the trailer of the current member and moves to the next one.
+		 *
+		 * @return false if there are no more members
+		 */
+		private boolean finishMember() throws IOException {
+			long trailerPosition = this.inputPosition - this.inflater.getRemaining();
+			ByteBuffer trailer = readFully(this.channel, trailerPosition, TRAILER_LENGTH);
+
+			if(trailer.getInt() != (int) this.crc.getValue() || trailer.getInt() != (int) this.inflater.getBytesWritten()) {
+				throw new ZipException("Corrupt gzip trailer in the member at " + this.memberPosition);
+			}
+
+			long next = trailerPosition + TRAILER_LENGTH;
+
+			if(!Header.isMember(this.channel, next)) {
+				this.finished = true;
+				return false;
+			}
+
+			startMember(next);
+
+			return true;
+		}
+
+		private void fillInput() throws IOException {
+			this.input.clear();
+			int read = this.channel.read(this.input, this.inputPosition);
+
+			if(read <= 0) {
+				throw new EOFException("Unexpected end of the compressed file in the member at " + this.memberPosition);
+			}
+
+			this.inputPosition += read;
+			this.inflater.setInput(this.input.array(), 0, read);
+		}
+	}
+
+	/**
+	 * Inflates the members of a block compressed file in parallel. The headers are read
+	 * ahead on the reading thread to find the members, and a bounded number of members
+	 * is inflated ahead of the reader.
+	 */
+	private static class ParallelBlockSource implements BlockSource {
+
+		private final FileChannel channel;
+
+		private final ExecutorService executor;
+
+		private final Deque<Future<Block>> pending = new ArrayDeque<>();
+
+		private final int readAhead;
+
+		private long nextPosition;
+
+		private boolean scanned;
+
+		ParallelBlockSource(FileChannel channel, long memberPosition, int threads) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("gzip-inflater-");
+			threadFactory.setDaemon(true);
+
+			this.channel = channel;
+			this.executor = Executors.newFixedThreadPool(threads, threadFactory);
+			this.readAhead = threads * 2;
+			this.nextPosition = memberPosition;
+		}
+
+		@Override
+		public Block next() throws IOException {
+			while (!this.scanned && this.pending.size() < this.readAhead) {
+				submitNext();
+			}
+
+			Future<Block> next = this.pending.pollFirst();
+
+			if(next == null) {
+				return null;
+			}
+
+			try {
+				return next.get();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while inflating " + this.channel, e);
+			}
+			catch (ExecutionException e) {
+				if(e.getCause() instanceof IOException) {
+					throw (IOException) e.getCause();
+				}
+
+				throw new IOException("Unable to inflate a member", e.getCause());
+			}
+		}
+
+		@Override
+		public void close() {
+			this.executor.shutdownNow();
+		}
+
+		private void submitNext() throws IOException {
+			long position = this.nextPosition;
+
+			if(!Header.isMember(this.channel, position)) {
+				this.scanned = true;
+				return;
+			}
+
+			Header header = Header.read(this.channel, position);
+
+			if(header.blockSize <= 0) {
+				throw new ZipException("The member at " + position + " is not a block compressed member");
+			}
+
+			this.nextPosition = position + header.blockSize;
+			this.pending.addLast(this.executor.submit(() -> inflate(position, header)));
+		}
+
+		private Block inflate(long position, Header header) throws IOException {
+			ByteBuffer member = readFully(this.channel, position, header.blockSize);
+			member.position(header.blockSize - TRAILER_LENGTH);
+
+			int expectedCrc = member.getInt();
+			int size = member.getInt();
+
+			byte[] data = new byte[size];
+			Inflater inflater = new Inflater(true);
+
+			try {
+				inflater.setInput(member.array(), header.length, header.blockSize - header.length - TRAILER_LENGTH);
+
+				int length = 0;
+				while (length < size && !inflater.finished()) {
+					int inflated = inflater.inflate(data, length, size - length);
+
+					if(inflated == 0 && inflater.needsInput()) {
+						break;
+					}
+
+					length += inflated;
+				}
+
+				CRC32 crc = new CRC32();
+				crc.update(data, 0, length);
+
+				if(length != size || (int) crc.getValue() != expectedCrc) {
+					throw new ZipException("Corrupt gzip trailer in the member at " + position);
+				}
+			}
+			catch (DataFormatException e) {
+				throw new ZipException("Invalid compressed data in the member at " + position);
+			}
+			finally {
+				inflater.end();
+			}
+
+			return new Block(position, true, data, size);
+		}
+	}
+
+	/**
+	 * The parts of a gzip member header needed to locate the compressed data.
+	 */
+	private static class Header {
+
+		private final int length;
+
+		/**
+		 * Total size of the member for block compressed members, -1 otherwise.
+		 */
+		private final int blockSize;
+
+		private Header(int length, int blockSize) {
+			this.length = length;
+			this.blockSize = blockSize;
+		}
+
+		static boolean isMember(FileChannel channel, long position) throws IOException {
+			if(position + 2 > channel.size()) {
+				return false;
+			}
+
+			ByteBuffer magic = readFully(channel, position, 2);
+
+			return (magic.get() & 0xff) == 0x1f && (magic.get() & 0xff) == 0x8b;
+		}
+
+		static Header read(FileChannel channel, long position) throws IOException {
+			ByteBuffer fixed = readFully(channel, position, 10);
+
+			if((fixed.get() & 0xff) != 0x1f || (fixed.get() & 0xff) != 0x8b || fixed.get() != 8) {
+				throw new ZipException("No gzip member at " + position);
+			}
+
+			int flags = fixed.get() & 0xff;
+			long offset = position + 10;
+			int blockSize = -1;
+
+			if((flags & FEXTRA) != 0) {
+				int extraLength = readFully(channel, offset, 2).getShort() & 0xffff;
+				ByteBuffer extra = readFully(channel, offset + 2, extraLength);
+				offset += 2 + extraLength;
+
+				while (extra.remaining() >= 4) {
+					int id1 = extra.get() & 0xff;
+					int id2 = extra.get() & 0xff;
+					int fieldLength = extra.getShort() & 0xffff;
+
+					if(id1 == 'B' && id2 == 'C' && fieldLength == 2 && extra.remaining() >= 2) {
+						blockSize = (extra.getShort() & 0xffff) + 1;
+					}
+					else {
+						extra.position(Math.min(extra.limit(), extra.position() + fieldLength));
+					}
+				}
+			}
+
+			if((flags & FNAME) != 0) {
+				offset = skipString(channel, offset);
+			}
+
+			if((flags & FCOMMENT) != 0) {
+				offset = skipString(channel, offset);
+			}
+
+			if((flags & FHCRC) != 0) {
+				offset += 2;
+			}
+
+			return new Header((int) (offset - position), blockSize);
+		}
+
+		private static long skipString(FileChannel channel, long position) throws IOException {
+			ByteBuffer buffer = ByteBuffer.allocate(256);
+
+			while (true) {
+				buffer.clear();
+				int read = channel.read(buffer, position);
+
+				if(read <= 0) {
+					throw new EOFException("Unexpected end of a gzip header");
+				}
+
+				for (int i = 0; i < read; i++) {
+					if(buffer.get(i) == 0) {
+						return position + i + 1;
+					}
+				}
+
+				position += read;
+			}
+		}
+	}
+
+	private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+
+		while (buffer.hasRemaining()) {
+			if(channel.read(buffer, position + buffer.position()) <= 0) {
+				throw new EOFException("Unexpected end of the compressed file");
+			}
+		}
+
+		buffer.flip();
+
+		return buffer;
+	}
+}
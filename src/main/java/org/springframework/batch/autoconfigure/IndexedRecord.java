@@ -0,0 +1,458 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.util.Assert;
+
+/**
+ * Compact {@link Map} view of a single record. The field names are held once in a
+ * shared {@link Schema} and the values of each record in a plain array, so no hash
+ * table is built per item. Keys that are not part of the schema can still be added and
+ * are kept in a separate map.
+ *
+ * As with the {@link java.util.Properties} produced by the default field set mapper,
+ * {@code null} values are not stored: putting {@code null} removes the key.
+ *
+ * @author Michael Minella
+ */
+public class IndexedRecord extends AbstractMap<Object, Object> {
+
+	private final Schema schema;
+
+	private final Object[] values;
+
+	private Map<Object, Object> additionalValues;
+
+	public IndexedRecord(Schema schema, Object[] values) {
+		Assert.notNull(schema, "A schema is required");
+		Assert.isTrue(values.length == schema.size(), "The number of values must match the schema");
+
+		this.schema = schema;
+		this.values = values;
+	}
+
+	public Schema getSchema() {
+		return this.schema;
+	}
+
+	/**
+	 * @param index the position of the field in the schema
+	 * @return the value of the field or {@code null} if it is not set
+	 */
+	public Object getValue(int index) {
+		return this.values[index];
+	}
+
+	public void setValue(int index, Object value) {
+		this.values[index] = value;
+	}
+
+	@Override
+	public Object get(Object key) {
+		int index = this.schema.indexOf(key);
+
+		if(index >= 0) {
+			return this.values[index];
+		}
+
+		return this.additionalValues != null ? this.additionalValues.get(key) : null;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	@Override
+	public Object put(Object key, Object value) {
+		if(value == null) {
+			return remove(key);
+		}
+
+		int index = this.schema.indexOf(key);
+
+		if(index >= 0) {
+			Object previous = this.values[index];
+			this.values[index] = value;
+			return previous;
+		}
+
+		if(this.additionalValues == null) {
+			this.additionalValues = new LinkedHashMap<>();
+		}
+
+		return this.additionalValues.put(key, value);
+	}
+
+	@Override
+	public Object remove(Object key) {
+		int index = this.schema.indexOf(key);
+
+		if(index >= 0) {
+			Object previous = this.values[index];
+			this.values[index] = null;
+			return previous;
+		}
+
+		return this.additionalValues != null ? this.additionalValues.remove(key) : null;
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < this.values.length; i++) {
+			this.values[i] = null;
+		}
+
+		this.additionalValues = null;
+	}
+
+	@Override
+	public int size() {
+		int size = this.additionalValues != null ? this.additionalValues.size() : 0;
+
+		for (Object value : this.values) {
+			if(value != null) {
+				size++;
+			}
+		}
+
+		return size;
+	}
+
+	@Override
+	public Set<Entry<Object, Object>> entrySet() {
+		return new AbstractSet<Entry<Object, Object>>() {
+
+			@Override
+			public Iterator<Entry<Object, Object>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return IndexedRecord.this.size();
+			}
+		};
+	}
+
+	private class EntryIterator implements Iterator<Entry<Object, Object>> {
+
+		private int next = advance(0);
+
+		private int current = -1;
+
+		private Iterator<Entry<Object, Object>> additional;
+
+		@Override
+		public boolean hasNext() {
+			return this.next < values.length || additional().hasNext();
+		}
+
+		@Override
+		public Entry<Object, Object> next() {
+			if(this.next < values.length) {
+				this.current = this.next;
+				this.next = advance(this.next + 1);
+				return new IndexedEntry(this.current);
+			}
+
+			this.current = -1;
+
+			if(!additional().hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			return additional().next();
+		}
+
+		@Override
+		public void remove() {
+			if(this.current >= 0) {
+				values[this.current] = null;
+				this.current = -1;
+			}
+			else {
+				additional().remove();
+			}
+		}
+
+		private int advance(int index) {
+			while (index < values.length && values[index] == null) {
+				index++;
+			}
+
+			return index;
+		}
+
+		private Iterator<Entry<Object, Object>> additional() {
+			if(this.additional == null) {
+				this.additional = additionalValues != null ? additionalValues.entrySet().iterator() :
+						Collections.<Entry<Object, Object>>emptyIterator();
+			}
+
+			return this.additional;
+		}
+	}
+
+	private class IndexedEntry implements Entry<Object, Object> {
+
+		private final int index;
+
+		IndexedEntry(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public Object getKey() {
+			return schema.getName(this.index);
+		}
+
+		@Override
+		public Object getValue() {
+			return values[this.index];
+		}
+
+		@Override
+		public Object setValue(Object value) {
+			Assert.notNull(value, "Null values are not supported");
+
+			Object previous = values[this.index];
+			values[this.index] = value;
+			return previous;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(!(o instanceof Entry)) {
+				return false;
+			}
+
+			Entry<?, ?> entry = (Entry<?, ?>) o;
+			return getKey().equals(entry.getKey()) && getValue().equals(entry.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return getKey().hashCode() ^ getValue().hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+	}
+
+	/**
+	 * The field names, and optionally their types, shared by all records read from the
+	 * same source, built once.
+	 */
+	public static class Schema {
+
+		private final String[] names;
+
+		private final ColumnType[] types;
+
+		private final Map<Object, Integer> indexes;
+
+		public Schema(String[] names) {
+			this(names, null);
+		}
+
+		/**
+		 * @param names the names of the fields
+		 * @param types the types of the fields, or {@code null} if they are not known
+		 */
+		public Schema(String[] names, ColumnType[] types) {
+			Assert.notEmpty(names, "At least one name is required");
+			Assert.isTrue(types == null || types.length == names.length, "The number of types must match the number of names");
+
+			this.names = names.clone();
+			this.types = types != null ? types.clone() : null;
+			this.indexes = new HashMap<>(names.length * 2);
+
+			for (int i = 0; i < names.length; i++) {
+				this.indexes.put(names[i], i);
+			}
+		}
+
+		/**
+		 * @param name the name of a field
+		 * @return the position of the field or -1 if it is not part of the schema
+		 */
+		public int indexOf(Object name) {
+			Integer index = this.indexes.get(name);
+
+			return index != null ? index : -1;
+		}
+
+		public String getName(int index) {
+			return this.names[index];
+		}
+
+		public String[] getNames() {
+			return this.names.clone();
+		}
+
+		/**
+		 * @param index the position of the field
+		 * @return the type of the field, or {@code null} if it is not known
+		 */
+		public ColumnType getType(int index) {
+			return this.types != null ? this.types[index] : null;
+		}
+
+		public int size() {
+			return this.names.length;
+		}
+	}
+
+	/**
+	 * Reads a fixed list of fields from records. Positions are resolved once per
+	 * {@link Schema} so that {@link IndexedRecord}s are read by index, while any other
+	 * {@link Map} falls back to a lookup by name.
+	 */
+	public static class Projection {
+
+		private final String[] names;
+
+		private volatile Binding binding;
+
+		public Projection(String[] names) {
+			Assert.notNull(names, "Names are required");
+
+			this.names = names;
+		}
+
+		public int size() {
+			return this.names.length;
+		}
+
+		/**
+		 * @param item the record to read from
+		 * @param index the position of the field in this projection
+		 * @return the value of the field
+		 */
+		public Object get(Map<Object, Object> item, int index) {
+			if(item instanceof IndexedRecord) {
+				IndexedRecord record = (IndexedRecord) item;
+				int position = indexes(record.getSchema())[index];
+
+				if(position >= 0) {
+					return record.getValue(position);
+				}
+			}
+
+			return item.get(this.names[index]);
+		}
+
+		/**
+		 * @param item the record to read from
+		 * @param index the position of the field in this projection
+		 * @return the type of the field declared by the schema of the record, or
+		 * {@code null} if it is not known
+		 */
+		public ColumnType getType(Map<Object, Object> item, int index) {
+			if(item instanceof IndexedRecord) {
+				Schema schema = ((IndexedRecord) item).getSchema();
+				int position = indexes(schema)[index];
+
+				if(position >= 0) {
+					return schema.getType(position);
+				}
+			}
+
+			return null;
+		}
+
+		/**
+		 * @param item the record to read from
+		 * @return the hash of the fields of this projection, spread so that keys only
+		 * differing in their high bits do not collide in the low ones
+		 */
+		public int hash(Map<Object, Object> item) {
+			int hash = 1;
+
+			for (int i = 0; i < this.names.length; i++) {
+				hash = 31 * hash + Objects.hashCode(get(item, i));
+			}
+
+			return hash ^ (hash >>> 16);
+		}
+
+		/**
+		 * @return true if the fields of this projection are equal in both records
+		 */
+		public boolean equals(Map<Object, Object> item, Map<Object, Object> other) {
+			for (int i = 0; i < this.names.length; i++) {
+				if(!Objects.equals(get(item, i), get(other, i))) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		public Object[] extract(Map<Object, Object> item) {
+			Object[] values = new Object[this.names.length];
+
+			for (int i = 0; i < values.length; i++) {
+				values[i] = get(item, i);
+			}
+
+			return values;
+		}
+
+		private int[] indexes(Schema schema) {
+			Binding current = this.binding;
+
+			if(current == null || current.schema != schema) {
+				int[] indexes = new int[this.names.length];
+
+				for (int i = 0; i < indexes.length; i++) {
+					indexes[i] = schema.indexOf(this.names[i]);
+				}
+
+				current = new Binding(schema, indexes);
+				this.binding = current;
+			}
+
+			return current.indexes;
+		}
+
+		private static class Binding {
+
+			private final Schema schema;
+
+			private final int[] indexes;
+
+			Binding(Schema schema, int[] indexes) {
+				this.schema = schema;
+				this.indexes = indexes;
+			}
+		}
+	}
+}
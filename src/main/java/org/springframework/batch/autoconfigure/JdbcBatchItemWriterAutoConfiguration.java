@@ -15,70 +15,433 @@
  */
 package org.springframework.batch.autoconfigure;
 
+import java.sql.ParameterMetaData;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import javax.sql.DataSource;
 
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.database.ItemPreparedStatementSetter;
 import org.springframework.batch.item.database.JdbcBatchItemWriter;
 import org.springframework.batch.item.database.JdbcParameterUtils;
 import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.batch.BatchAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.NoneNestedConditions;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.ConditionContext;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
 
 /**
  * @author Michael Minella
  */
 @Configuration
-@EnableConfigurationProperties(JdbcBatchItemWriterProperties.class)
+@EnableConfigurationProperties({JdbcBatchItemWriterProperties.class, SingleStepProperties.class})
 @AutoConfigureAfter(BatchAutoConfiguration.class)
 public class JdbcBatchItemWriterAutoConfiguration {
 
 	private final JdbcBatchItemWriterProperties properties;
 
-	public JdbcBatchItemWriterAutoConfiguration(JdbcBatchItemWriterProperties properties) {
+	private final SingleStepProperties stepProperties;
+
+	public JdbcBatchItemWriterAutoConfiguration(JdbcBatchItemWriterProperties properties,
+			SingleStepProperties stepProperties) {
 		this.properties = properties;
+		this.stepProperties = stepProperties;
 	}
 
 	@Bean
 	@ConditionalOnMissingBean
 	@ConditionalOnProperty(prefix = "spring.batch.job.jdbcwriter", name = "sql")
+	@Conditional(JdbcWriterCondition.class)
 	public JdbcBatchItemWriter<Map<Object, Object>> writer(DataSource dataSource) {
+		return jdbcBatchItemWriter(dataSource, this.properties.getSql());
+	}
+
+	/**
+	 * The writer when items are deduplicated, staged, written in parallel or with
+	 * multi-row inserts, which is not a {@link JdbcBatchItemWriter}.
+	 */
+	@Bean(name = "writer")
+	@ConditionalOnMissingBean(JdbcBatchItemWriter.class)
+	@ConditionalOnProperty(prefix = "spring.batch.job.jdbcwriter", name = "sql")
+	@Conditional(WrappedWriterCondition.class)
+	public ItemWriter<Map<Object, Object>> wrappedWriter(DataSource dataSource,
+			ObjectProvider<Partitioner> partitionerProvider) {
+		boolean partitioned = partitionerProvider.getIfAvailable() != null ||
+				this.stepProperties.getPartitioning().getRole() != SingleStepProperties.Partitioning.Role.LOCAL;
+		ItemWriter<Map<Object, Object>> writer = jdbcItemWriter(dataSource, partitioned);
+
+		if(!ObjectUtils.isEmpty(this.properties.getKeyFields())) {
+			return new DeduplicatingItemWriter(writer, this.properties.getKeyFields());
+		}
+
+		return writer;
+	}
+
+	private ItemWriter<Map<Object, Object>> jdbcItemWriter(DataSource dataSource, boolean partitioned) {
+		JdbcBatchItemWriterProperties.Staging staging = this.properties.getStaging();
+		JdbcBatchItemWriterProperties.Parallel parallel = this.properties.getParallel();
+
+		if(StringUtils.hasText(staging.getTable())) {
+			Assert.state(parallel.getConnections() <= 1, "spring.batch.job.jdbcwriter.staging.table cannot be " +
+					"combined with spring.batch.job.jdbcwriter.parallel.connections");
+			Assert.state(!ObjectUtils.isEmpty(this.properties.getNames()), "spring.batch.job.jdbcwriter.staging.table " +
+					"requires the names of the columns of the staging table");
+			// each partition would empty the staging table the others are loading
+			Assert.state(staging.getApply() == JdbcBatchItemWriterProperties.Staging.Apply.CHUNK || !partitioned,
+					"spring.batch.job.jdbcwriter.staging.apply=step cannot be combined with a partitioned step");
+
+			String load = "INSERT INTO " + staging.getTable() + " (" +
+					StringUtils.arrayToCommaDelimitedString(this.properties.getNames()) + ") VALUES (" +
+					StringUtils.collectionToCommaDelimitedString(Collections.nCopies(this.properties.getNames().length, "?")) + ")";
+
+			return new StagingTableItemWriter(batchItemWriter(dataSource, load),
+					dataSource,
+					staging.getTable(),
+					this.properties.getSql(),
+					staging.getApply() == JdbcBatchItemWriterProperties.Staging.Apply.CHUNK);
+		}
+
+		ItemWriter<Map<Object, Object>> writer = batchItemWriter(dataSource, this.properties.getSql());
+
+		if(parallel.getConnections() > 1) {
+			return new ParallelJdbcItemWriter(writer,
+					dataSource,
+					parallel.getConnections(),
+					concurrentChunks(partitioned),
+					parallel.getRoutingKeys(),
+					parallel.getTimeout());
+		}
+
+		return writer;
+	}
+
+	/**
+	 * @return the number of chunks the writer may be given at the same time by the
+	 * partitions or the threads of the step
+	 */
+	private int concurrentChunks(boolean partitioned) {
+		if(partitioned) {
+			return Math.max(this.stepProperties.getPartitionWorkers(), 1);
+		}
+
+		Integer concurrency = this.stepProperties.getConcurrency();
+
+		return concurrency != null ? Math.max(concurrency, 1) : 1;
+	}
+
+	private ItemWriter<Map<Object, Object>> batchItemWriter(DataSource dataSource, String sql) {
+		if(this.properties.getRowsPerInsert() > 1) {
+			return multiRowInsertItemWriter(dataSource, sql);
+		}
+
+		return jdbcBatchItemWriter(dataSource, sql);
+	}
+
+	private JdbcBatchItemWriter<Map<Object, Object>> jdbcBatchItemWriter(DataSource dataSource, String sql) {
 		JdbcBatchItemWriterBuilder<Map<Object, Object>> mapJdbcBatchItemWriterBuilder = new JdbcBatchItemWriterBuilder<Map<Object, Object>>()
-				.sql(this.properties.getSql())
+				.sql(sql)
 				.dataSource(dataSource)
 				.assertUpdates(this.properties.isAssertUpdates());
 
 		List<String> namedParameters = new ArrayList<>();
-		JdbcParameterUtils.countParameterPlaceholders(this.properties.getSql(), namedParameters);
+		JdbcParameterUtils.countParameterPlaceholders(sql, namedParameters);
 
 		if(namedParameters.isEmpty()) {
-			mapJdbcBatchItemWriterBuilder.itemPreparedStatementSetter(new MapPreparedStatementSetter(this.properties.getNames()));
+			mapJdbcBatchItemWriterBuilder.itemPreparedStatementSetter(new MapPreparedStatementSetter(this.properties.getNames(),
+					this.properties.getTypes()));
 		}
 
 		return mapJdbcBatchItemWriterBuilder.build();
 	}
 
+	private MultiRowInsertItemWriter multiRowInsertItemWriter(DataSource dataSource, String sql) {
+		Assert.state(MultiRowInsertItemWriter.isRewritable(sql),
+				"spring.batch.job.jdbcwriter.rows-per-insert requires a single row INSERT INTO ... VALUES (...) " +
+						"with ? parameters");
+
+		MultiRowInsertItemWriter writer = new MultiRowInsertItemWriter(dataSource,
+				sql,
+				new MapPreparedStatementSetter(this.properties.getNames(), this.properties.getTypes()),
+				this.properties.getRowsPerInsert());
+		writer.setAssertUpdates(this.properties.isAssertUpdates());
+
+		return writer;
+	}
+
+	/**
+	 * Matches when the writer is wrapped or replaced by one of the options of the
+	 * writer, from the bound properties, as the type of the writer bean must be known
+	 * before it is created.
+	 */
+	static class WrappedWriterCondition extends SpringBootCondition {
+
+		private static final String PREFIX = "spring.batch.job.jdbcwriter.";
+
+		@Override
+		public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+			Binder binder = Binder.get(context.getEnvironment());
+
+			if(!ObjectUtils.isEmpty(binder.bind(PREFIX + "key-fields", String[].class).orElse(null))) {
+				return ConditionOutcome.match("items are deduplicated");
+			}
+
+			if(StringUtils.hasText(binder.bind(PREFIX + "staging.table", String.class).orElse(null))) {
+				return ConditionOutcome.match("items are staged");
+			}
+
+			if(binder.bind(PREFIX + "parallel.connections", Integer.class).orElse(1) > 1) {
+				return ConditionOutcome.match("items are written in parallel");
+			}
+
+			if(binder.bind(PREFIX + "rows-per-insert", Integer.class).orElse(1) > 1) {
+				return ConditionOutcome.match("items are written with multi-row inserts");
+			}
+
+			return ConditionOutcome.noMatch("items are written by a JdbcBatchItemWriter");
+		}
+	}
+
+	static class JdbcWriterCondition extends NoneNestedConditions {
+
+		JdbcWriterCondition() {
+			super(ConfigurationPhase.REGISTER_BEAN);
+		}
+
+		@Conditional(WrappedWriterCondition.class)
+		static class WrappedWriter {
+		}
+	}
+
+	/**
+	 * Binds the named fields of a record to the parameters of a statement, in order, with
+	 * the typed JDBC setter of their {@link ColumnType}.
+	 *
+	 * The type of a field is the one declared by the schema of the record. Otherwise it
+	 * is the type of its parameter, configured or reported by the parameter metadata of
+	 * the statement, which is looked up once, on the first item. Strings are then
+	 * converted to the type of their parameter, and {@code null} values are bound with
+	 * its SQL type. Fields of other types are bound from the class of their value, and
+	 * untyped strings are left to the driver to convert.
+	 *
+	 * The binding of each field is decided once, from its first value, and only decided
+	 * again if the class of its values changes. Only configured types are required to
+	 * parse: once a string does not parse as the type reported by the metadata, such as
+	 * {@code Y} for a boolean, the field is left to the driver as before, without
+	 * parsing the following values.
+	 */
 	public static class MapPreparedStatementSetter implements ItemPreparedStatementSetter<Map<Object, Object>> {
 
-		private final String[] names;
+		private final IndexedRecord.Projection projection;
+
+		private final ColumnType[] configuredTypes;
+
+		private volatile ColumnType[] parameterTypes;
+
+		private final Binding[] bindings;
 
 		public MapPreparedStatementSetter(String[] names) {
-			this.names = names;
+			this(names, Collections.emptyMap());
+		}
+
+		/**
+		 * @param names the names of the fields bound to the parameters, in order
+		 * @param types the types of the parameters by name, overriding the parameter
+		 * metadata
+		 */
+		public MapPreparedStatementSetter(String[] names, Map<String, ColumnType> types) {
+			this.projection = new IndexedRecord.Projection(names);
+			this.configuredTypes = new ColumnType[names.length];
+
+			for (int i = 0; i < names.length; i++) {
+				this.configuredTypes[i] = types.get(names[i]);
+			}
+
+			this.bindings = new Binding[names.length];
 		}
 
 		@Override
 		public void setValues(Map<Object, Object> item, PreparedStatement ps) throws SQLException {
-			for(int i = 0; i < this.names.length; i++) {
-				ps.setObject(i++, item.get(this.names[i]));
+			setValues(item, ps, 0);
+		}
+
+		/**
+		 * Binds the fields of a record to the parameters following {@code offset}, for
+		 * statements binding several records.
+		 */
+		public void setValues(Map<Object, Object> item, PreparedStatement ps, int offset) throws SQLException {
+			ColumnType[] parameterTypes = parameterTypes(ps);
+
+			for(int i = 0; i < this.projection.size(); i++) {
+				Object value = this.projection.get(item, i);
+				ColumnType schemaType = this.projection.getType(item, i);
+				int index = offset + i + 1;
+
+				if(value == null) {
+					ColumnType type = schemaType != null ? schemaType : parameterTypes[i];
+
+					if(type != null) {
+						type.setParameter(ps, index, null);
+					}
+					else {
+						ps.setObject(index, null);
+					}
+
+					continue;
+				}
+
+				Binding binding = this.bindings[i];
+
+				if(binding == null || binding.valueClass != value.getClass() || binding.schemaType != schemaType) {
+					binding = Binding.of(value, schemaType, parameterTypes[i], this.configuredTypes[i] != null);
+					this.bindings[i] = binding;
+				}
+
+				if(binding.parsed) {
+					String text = (String) value;
+					value = parse(binding, i, text);
+
+					if(value == null && !binding.strict) {
+						// empty, or left to the driver from now on
+						ps.setObject(index, text);
+						continue;
+					}
+				}
+
+				if(binding.type != null) {
+					binding.type.setParameter(ps, index, value);
+				}
+				else {
+					ps.setObject(index, value);
+				}
+			}
+		}
+
+		/**
+		 * @return the string converted to the type of the binding, or {@code null} if it
+		 * is empty or, for a type reported by the parameter metadata, in a format left to
+		 * the driver, which the column is then bound with from now on
+		 */
+		private Object parse(Binding binding, int i, String value) {
+			if(binding.strict) {
+				return binding.type.parse(value.trim());
+			}
+
+			try {
+				return binding.type.parse(value.trim());
+			}
+			catch (RuntimeException e) {
+				this.bindings[i] = new Binding(String.class, null, null, false, false);
+
+				return null;
+			}
+		}
+
+		private ColumnType[] parameterTypes(PreparedStatement ps) {
+			ColumnType[] current = this.parameterTypes;
+
+			if(current == null) {
+				current = this.configuredTypes.clone();
+				ParameterMetaData metaData = null;
+
+				try {
+					metaData = ps.getParameterMetaData();
+				}
+				catch (SQLException e) {
+					// not supported by the driver, the configured types are used alone
+				}
+
+				for (int i = 0; i < current.length; i++) {
+					if(current[i] == null && metaData != null) {
+						current[i] = metaDataType(metaData, i + 1);
+					}
+				}
+
+				this.parameterTypes = current;
+			}
+
+			return current;
+		}
+
+		private static ColumnType metaDataType(ParameterMetaData metaData, int index) {
+			try {
+				return index <= metaData.getParameterCount() ?
+						ColumnType.forSqlType(metaData.getParameterType(index)) : null;
+			}
+			catch (SQLException e) {
+				return null;
+			}
+		}
+
+		/**
+		 * How the values of a class are bound to a parameter, decided on the first of
+		 * them. Bindings are immutable, so threads sharing the setter at most decide the
+		 * same binding twice.
+		 */
+		private static final class Binding {
+
+			private final Class<?> valueClass;
+
+			private final ColumnType schemaType;
+
+			/**
+			 * The typed setter, or {@code null} to leave the value to the driver.
+			 */
+			private final ColumnType type;
+
+			/**
+			 * Whether strings are converted to the type before they are bound.
+			 */
+			private final boolean parsed;
+
+			/**
+			 * Whether strings must parse, as their type is configured.
+			 */
+			private final boolean strict;
+
+			private Binding(Class<?> valueClass, ColumnType schemaType, ColumnType type, boolean parsed, boolean strict) {
+				this.valueClass = valueClass;
+				this.schemaType = schemaType;
+				this.type = type;
+				this.parsed = parsed;
+				this.strict = strict;
+			}
+
+			private static Binding of(Object value, ColumnType schemaType, ColumnType parameterType, boolean configured) {
+				Class<?> valueClass = value.getClass();
+
+				if(schemaType != null) {
+					return new Binding(valueClass, schemaType, schemaType, false, false);
+				}
+
+				if(value instanceof String) {
+					if(parameterType != null && parameterType != ColumnType.STRING) {
+						return new Binding(valueClass, null, parameterType, true, configured);
+					}
+
+					// untyped strings are still left to the driver to convert
+					return new Binding(valueClass, null, parameterType, false, false);
+				}
+
+				return new Binding(valueClass, null, ColumnType.of(value), false, false);
 			}
 		}
 	}
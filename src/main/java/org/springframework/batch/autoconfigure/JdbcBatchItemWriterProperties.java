@@ -15,6 +15,10 @@
  */
 package org.springframework.batch.autoconfigure;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -29,6 +33,16 @@ public class JdbcBatchItemWriterProperties {
 
 	private String[] names;
 
+	private Map<String, ColumnType> types = new LinkedHashMap<>();
+
+	private int rowsPerInsert = 1;
+
+	private String[] keyFields;
+
+	private final Staging staging = new Staging();
+
+	private final Parallel parallel = new Parallel();
+
 	public boolean isAssertUpdates() {
 		return assertUpdates;
 	}
@@ -52,4 +66,125 @@ public class JdbcBatchItemWriterProperties {
 	public void setNames(String[] names) {
 		this.names = names;
 	}
+
+	/**
+	 * @return the types of the parameters by name, for the parameters whose type is not
+	 * known from the record or from the parameter metadata of the statement
+	 */
+	public Map<String, ColumnType> getTypes() {
+		return types;
+	}
+
+	public void setTypes(Map<String, ColumnType> types) {
+		this.types = types;
+	}
+
+	/**
+	 * @return the number of rows inserted per statement, rewriting a single row insert
+	 * when greater than one
+	 */
+	public int getRowsPerInsert() {
+		return rowsPerInsert;
+	}
+
+	public void setRowsPerInsert(int rowsPerInsert) {
+		this.rowsPerInsert = rowsPerInsert;
+	}
+
+	/**
+	 * @return the fields identifying the items, collapsing the items of a chunk with the
+	 * same key to the last of them, typically for an upsert statement
+	 */
+	public String[] getKeyFields() {
+		return keyFields;
+	}
+
+	public void setKeyFields(String[] keyFields) {
+		this.keyFields = keyFields;
+	}
+
+	public Staging getStaging() {
+		return staging;
+	}
+
+	public Parallel getParallel() {
+		return parallel;
+	}
+
+	/**
+	 * Loads the items into a staging table, with the columns of the names, and applies
+	 * it with the configured SQL.
+	 */
+	public static class Staging {
+
+		private String table;
+
+		private Apply apply = Apply.CHUNK;
+
+		public String getTable() {
+			return table;
+		}
+
+		public void setTable(String table) {
+			this.table = table;
+		}
+
+		public Apply getApply() {
+			return apply;
+		}
+
+		public void setApply(Apply apply) {
+			this.apply = apply;
+		}
+
+		public enum Apply {
+
+			/**
+			 * Each chunk is applied in its transaction.
+			 */
+			CHUNK,
+
+			/**
+			 * The staging table is applied once the step completed.
+			 */
+			STEP
+		}
+	}
+
+	/**
+	 * Splits each chunk into sub-batches written at the same time on several
+	 * connections, see {@link ParallelJdbcItemWriter}.
+	 */
+	public static class Parallel {
+
+		private int connections = 1;
+
+		private String[] routingKeys;
+
+		private Duration timeout = Duration.ofSeconds(60);
+
+		public int getConnections() {
+			return connections;
+		}
+
+		public void setConnections(int connections) {
+			this.connections = connections;
+		}
+
+		public String[] getRoutingKeys() {
+			return routingKeys;
+		}
+
+		public void setRoutingKeys(String[] routingKeys) {
+			this.routingKeys = routingKeys;
+		}
+
+		public Duration getTimeout() {
+			return timeout;
+		}
+
+		public void setTimeout(Duration timeout) {
+			this.timeout = timeout;
+		}
+	}
 }
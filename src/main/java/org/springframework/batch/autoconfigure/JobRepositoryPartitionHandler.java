@@ -0,0 +1,110 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.partition.support.AbstractPartitionHandler;
+import org.springframework.util.Assert;
+
+/**
+ * Partition handler of a manager that leaves the partitions to
+ * {@link JobRepositoryPartitionWorker}s, possibly in other JVMs, sharing its job
+ * repository.
+ *
+ * The partitions are saved in the job repository with the status
+ * {@link BatchStatus#STARTING} when the step is split. Workers claim and run them, and
+ * the handler polls the job repository until none of them is running anymore. No
+ * broker is involved, all the JVMs only need to reach the job repository database. A
+ * file backed HSQLDB database is locked by the JVM that opens it, so to try it out on
+ * one machine with several processes, serve the file with an HSQLDB server.
+ *
+ * A partition claimed by a worker that dies stays {@link BatchStatus#STARTED}, so a
+ * timeout should be set when workers can be lost. The step then fails and a restart of
+ * the job creates new executions for the partitions that did not complete.
+ *
+ * @author Michael Minella
+ */
+public class JobRepositoryPartitionHandler extends AbstractPartitionHandler {
+
+	private final JobExplorer jobExplorer;
+
+	private final long pollIntervalMillis;
+
+	private final Duration timeout;
+
+	/**
+	 * @param jobExplorer the explorer of the job repository shared with the workers
+	 * @param pollInterval the time between two polls of the job repository
+	 * @param timeout the time to wait for the partitions, or {@code null} to wait forever
+	 */
+	public JobRepositoryPartitionHandler(JobExplorer jobExplorer, Duration pollInterval, Duration timeout) {
+		Assert.notNull(jobExplorer, "A job explorer is required");
+		Assert.isTrue(pollInterval != null && !pollInterval.isNegative() && !pollInterval.isZero(),
+				"The poll interval must be positive");
+
+		this.jobExplorer = jobExplorer;
+		this.pollIntervalMillis = pollInterval.toMillis();
+		this.timeout = timeout;
+	}
+
+	@Override
+	protected Set<StepExecution> doHandle(StepExecution managerStepExecution,
+			Set<StepExecution> partitionStepExecutions) throws Exception {
+		long deadline = this.timeout != null ? System.nanoTime() + this.timeout.toNanos() : 0;
+
+		while (true) {
+			Set<StepExecution> finished = finished(managerStepExecution.getJobExecutionId(), partitionStepExecutions);
+
+			if(finished != null) {
+				return finished;
+			}
+
+			if(this.timeout != null && System.nanoTime() - deadline >= 0) {
+				throw new TimeoutException("Timed out after " + this.timeout + " waiting for the partitions of " +
+						managerStepExecution.getStepName());
+			}
+
+			Thread.sleep(this.pollIntervalMillis);
+		}
+	}
+
+	/**
+	 * @return the current executions of the partitions, or {@code null} while one of them
+	 * is running
+	 */
+	private Set<StepExecution> finished(Long jobExecutionId, Set<StepExecution> partitionStepExecutions) {
+		Set<StepExecution> finished = new HashSet<>(partitionStepExecutions.size());
+
+		for (StepExecution partitionStepExecution : partitionStepExecutions) {
+			StepExecution current = this.jobExplorer.getStepExecution(jobExecutionId, partitionStepExecution.getId());
+
+			if(current.getStatus().isRunning() || current.getStatus() == BatchStatus.STOPPING) {
+				return null;
+			}
+
+			finished.add(current);
+		}
+
+		return finished;
+	}
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.util.Assert;
+
+/**
+ * Runs the partitions created by a {@link JobRepositoryPartitionHandler}, possibly in
+ * another JVM, sharing its job repository.
+ *
+ * Each of the worker threads polls the running executions of the job for a partition of
+ * the worker step with the status {@link BatchStatus#STARTING}. It claims the partition
+ * by saving it as {@link BatchStatus#STARTED}: the job repository only updates a step
+ * execution of the version it was read at, so when several workers try to claim the
+ * same partition, only one succeeds and the others look for another one. The claimed
+ * partition is then executed by the worker step on the same thread.
+ *
+ * The worker threads are started with the application context and are not daemon
+ * threads, so a worker application keeps running until it is shut down.
+ *
+ * @author Michael Minella
+ */
+public class JobRepositoryPartitionWorker implements SmartLifecycle {
+
+	private static final Log logger = LogFactory.getLog(JobRepositoryPartitionWorker.class);
+
+	private final Step step;
+
+	private final String jobName;
+
+	private final JobExplorer jobExplorer;
+
+	private final JobRepository jobRepository;
+
+	private final int threads;
+
+	private final long pollIntervalMillis;
+
+	private final List<Thread> workers = new ArrayList<>();
+
+	private volatile boolean running;
+
+	/**
+	 * @param step the worker step
+	 * @param jobName the name of the job whose partitions are run
+	 * @param jobExplorer the explorer of the job repository shared with the manager
+	 * @param jobRepository the job repository shared with the manager
+	 * @param threads the number of partitions run at a time
+	 * @param pollInterval the time between two polls when there is no partition to run
+	 */
+	public JobRepositoryPartitionWorker(Step step, String jobName, JobExplorer jobExplorer,
+			JobRepository jobRepository, int threads, Duration pollInterval) {
+		Assert.notNull(step, "A step is required");
+		Assert.hasText(jobName, "A job name is required");
+		Assert.notNull(jobExplorer, "A job explorer is required");
+		Assert.notNull(jobRepository, "A job repository is required");
+		Assert.isTrue(threads > 0, "The number of threads must be greater than zero");
+		Assert.isTrue(pollInterval != null && !pollInterval.isNegative() && !pollInterval.isZero(),
+				"The poll interval must be positive");
+
+		this.step = step;
+		this.jobName = jobName;
+		this.jobExplorer = jobExplorer;
+		this.jobRepository = jobRepository;
+		this.threads = threads;
+		this.pollIntervalMillis = pollInterval.toMillis();
+	}
+
+	@Override
+	public synchronized void start() {
+		if(this.running) {
+			return;
+		}
+
+		this.running = true;
+
+		for (int i = 1; i <= this.threads; i++) {
+			Thread worker = new Thread(this::poll, this.step.getName() + "-" + i);
+			worker.start();
+
+			this.workers.add(worker);
+		}
+	}
+
+	@Override
+	public synchronized void stop() {
+		this.running = false;
+
+		for (Thread worker : this.workers) {
+			worker.interrupt();
+		}
+
+		for (Thread worker : this.workers) {
+			try {
+				worker.join();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+
+		this.workers.clear();
+	}
+
+	@Override
+	public void stop(Runnable callback) {
+		stop();
+		callback.run();
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	@Override
+	public boolean isAutoStartup() {
+		return true;
+	}
+
+	@Override
+	public int getPhase() {
+		return Integer.MAX_VALUE;
+	}
+
+	private void poll() {
+		while (this.running) {
+			StepExecution stepExecution = null;
+
+			try {
+				stepExecution = claim();
+			}
+			catch (RuntimeException e) {
+				logger.warn("Unable to poll the job repository for partitions of " + this.step.getName(), e);
+			}
+
+			if(stepExecution != null) {
+				execute(stepExecution);
+			}
+			else {
+				try {
+					Thread.sleep(this.pollIntervalMillis);
+				}
+				catch (InterruptedException e) {
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return a partition claimed by this worker, or {@code null} if there is none to run
+	 */
+	private StepExecution claim() {
+		String prefix = this.step.getName() + ":";
+
+		for (JobExecution jobExecution : this.jobExplorer.findRunningJobExecutions(this.jobName)) {
+			for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+				if(stepExecution.getStatus() == BatchStatus.STARTING && stepExecution.getStepName().startsWith(prefix)) {
+					stepExecution.setStatus(BatchStatus.STARTED);
+
+					try {
+						this.jobRepository.update(stepExecution);
+
+						return stepExecution;
+					}
+					catch (OptimisticLockingFailureException e) {
+						// claimed by another worker
+					}
+				}
+			}
+		}
+
+		return null;
+	}
+
+	private void execute(StepExecution stepExecution) {
+		try {
+			this.step.execute(stepExecution);
+		}
+		catch (Exception e) {
+			logger.error("Partition " + stepExecution.getStepName() + " of job execution " +
+					stepExecution.getJobExecutionId() + " failed", e);
+		}
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * {@link Partitioner} that creates one partition per range of a key field. Ranges are
+ * written {@code min..max}, both bounds inclusive, and either bound may be left out
+ * for an open range ({@code ..999} or {@code 1000..}). Bounds are compared as numbers
+ * when both the bound and the value are numbers, and as strings otherwise, like the
+ * bounds of a {@link RecordFilter.Condition}.
+ *
+ * Each worker reads the whole input and keeps the records whose key falls in its
+ * range, so the ranges should not overlap. As the filter is evaluated on the raw values
+ * of a line, records outside the range are skipped before they are mapped.
+ *
+ * The configured ranges are used in place of the grid size requested by the partition
+ * step.
+ *
+ * @author Michael Minella
+ */
+public class KeyRangePartitioner implements Partitioner {
+
+	public static final String MIN_KEY = "keyMin";
+
+	public static final String MAX_KEY = "keyMax";
+
+	private static final String RANGE_SEPARATOR = "..";
+
+	private static final String PARTITION_PREFIX = "partition";
+
+	private final List<String> ranges;
+
+	public KeyRangePartitioner(List<String> ranges) {
+		Assert.notEmpty(ranges, "At least one key range is required");
+
+		for (String range : ranges) {
+			Assert.isTrue(range.contains(RANGE_SEPARATOR), "Key ranges must be written min..max but found " + range);
+		}
+
+		this.ranges = ranges;
+	}
+
+	@Override
+	public Map<String, ExecutionContext> partition(int gridSize) {
+		Map<String, ExecutionContext> contexts = new LinkedHashMap<>(this.ranges.size());
+
+		for (int i = 0; i < this.ranges.size(); i++) {
+			String range = this.ranges.get(i);
+			int separator = range.indexOf(RANGE_SEPARATOR);
+
+			String min = range.substring(0, separator).trim();
+			String max = range.substring(separator + RANGE_SEPARATOR.length()).trim();
+
+			ExecutionContext context = new ExecutionContext();
+
+			if(StringUtils.hasLength(min)) {
+				context.putString(MIN_KEY, min);
+			}
+
+			if(StringUtils.hasLength(max)) {
+				context.putString(MAX_KEY, max);
+			}
+
+			contexts.put(PARTITION_PREFIX + i, context);
+		}
+
+		return contexts;
+	}
+}
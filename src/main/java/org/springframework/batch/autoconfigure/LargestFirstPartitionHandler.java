@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.partition.support.TaskExecutorPartitionHandler;
+
+/**
+ * {@link TaskExecutorPartitionHandler} that submits the partitions with the largest
+ * {@link #SIZE_KEY} first, so that the longest running partitions do not start last
+ * and hold up the step. Partitions without a size are submitted after the others, in
+ * order of their names. Together with a task executor that starts tasks in submission
+ * order, this bounds the tail of a step with partitions of uneven size.
+ *
+ * @author Michael Minella
+ */
+public class LargestFirstPartitionHandler extends TaskExecutorPartitionHandler {
+
+	/**
+	 * Key of the estimated amount of work of a partition in its execution context.
+	 */
+	public static final String SIZE_KEY = "partitionSize";
+
+	@Override
+	protected Set<StepExecution> doHandle(StepExecution managerStepExecution,
+			Set<StepExecution> partitionStepExecutions) throws Exception {
+		List<StepExecution> ordered = new ArrayList<>(partitionStepExecutions);
+
+		ordered.sort(Comparator.comparingLong(LargestFirstPartitionHandler::size).reversed()
+				.thenComparing(StepExecution::getStepName));
+
+		return super.doHandle(managerStepExecution, new LinkedHashSet<>(ordered));
+	}
+
+	private static long size(StepExecution stepExecution) {
+		return stepExecution.getExecutionContext().getLong(SIZE_KEY, -1);
+	}
+}
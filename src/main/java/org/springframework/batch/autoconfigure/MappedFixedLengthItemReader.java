@@ -0,0 +1,433 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+
+import org.springframework.batch.item.file.ResourceAwareItemReaderItemStream;
+import org.springframework.batch.item.file.transform.IncorrectLineLengthException;
+import org.springframework.batch.item.file.transform.Range;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+/**
+ * Reader for files of fixed width records that memory-maps the file instead of reading
+ * it line by line. The offset of every record is computed from its index, so jumping to
+ * an item on restart takes constant time, and columns are decoded straight from the
+ * mapped bytes.
+ *
+ * The record length is either configured or detected from the first line terminator
+ * following the skipped lines, which may be of any length. Files without line
+ * terminators require a record length or bounded ranges, and their skipped lines are
+ * as long as a record. The configured {@link Range}s are applied to bytes, which
+ * matches character columns for single byte encodings and for ASCII data in UTF-8.
+ * Values are trimmed as they would be by the default field set mapper, and converted if
+ * column types are set.
+ *
+ * @author Michael Minella
+ */
+public class MappedFixedLengthItemReader extends AbstractItemCountingItemStreamItemReader<Map<Object, Object>>
+		implements ResourceAwareItemReaderItemStream<Map<Object, Object>>, InitializingBean {
+
+	private static final int MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+
+	private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+	private final long startPosition;
+
+	private final long endPosition;
+
+	private Resource resource;
+
+	private Charset charset = Charset.forName("UTF-8");
+
+	private Range[] ranges;
+
+	private String[] names;
+
+	private boolean indexedRecords;
+
+	private ColumnType[] types;
+
+	private RecordFilter filter;
+
+	private IndexedRecord.Schema schema;
+
+	private int recordLength;
+
+	private int linesToSkip;
+
+	private boolean strict = true;
+
+	private boolean[] whitespace;
+
+	private byte[] columnBytes;
+
+	private FileChannel channel;
+
+	private long end;
+
+	private long firstRecordPosition;
+
+	private int stride;
+
+	private int width;
+
+	private long recordCount;
+
+	private long recordsPerSegment;
+
+	private long segment = -1;
+
+	private ByteBuffer segmentBuffer;
+
+	private long nextRecord;
+
+	public MappedFixedLengthItemReader() {
+		this(0, Long.MAX_VALUE);
+	}
+
+	/**
+	 * @param startPosition the byte position of the first record to read
+	 * @param endPosition the byte position after the last record to read
+	 */
+	public MappedFixedLengthItemReader(long startPosition, long endPosition) {
+		Assert.isTrue(startPosition >= 0 && endPosition >= startPosition, "Invalid byte range");
+
+		this.startPosition = startPosition;
+		this.endPosition = endPosition;
+	}
+
+	@Override
+	public void setResource(Resource resource) {
+		this.resource = resource;
+	}
+
+	public void setEncoding(String encoding) {
+		this.charset = Charset.forName(encoding);
+	}
+
+	public void setRanges(Range... ranges) {
+		this.ranges = ranges;
+	}
+
+	public void setNames(String... names) {
+		this.names = names;
+	}
+
+	/**
+	 * @param indexedRecords true to produce {@link IndexedRecord}s instead of
+	 * {@link Properties}
+	 */
+	public void setIndexedRecords(boolean indexedRecords) {
+		this.indexedRecords = indexedRecords;
+	}
+
+	/**
+	 * @param types the types of the columns, or {@code null} to read all values as
+	 * strings
+	 */
+	public void setTypes(ColumnType... types) {
+		this.types = types;
+	}
+
+	/**
+	 * @param filter the filter records must match, checked on the filtered columns
+	 * before the others are decoded. {@link RecordFilter#FILTERED} is returned for other
+	 * records.
+	 */
+	public void setFilter(RecordFilter filter) {
+		this.filter = filter;
+	}
+
+	/**
+	 * @param recordLength the number of bytes per record, including any line
+	 * terminator. When not set, the length is detected from the first line terminator.
+	 */
+	public void setRecordLength(int recordLength) {
+		this.recordLength = recordLength;
+	}
+
+	public void setLinesToSkip(int linesToSkip) {
+		this.linesToSkip = linesToSkip;
+	}
+
+	/**
+	 * @param strict true to require that the ranges cover each record exactly
+	 */
+	public void setStrict(boolean strict) {
+		this.strict = strict;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		Assert.notNull(this.resource, "A resource is required");
+		Assert.notEmpty(this.ranges, "Ranges are required");
+		Assert.notEmpty(this.names, "Names are required");
+		Assert.isTrue(this.ranges.length == this.names.length, "The number of names must match the number of ranges");
+		Assert.isTrue(this.types == null || this.types.length == this.names.length,
+				"The number of types must match the number of names");
+		Assert.state(Arrays.equals("\n".getBytes(this.charset), new byte[] {'\n'}),
+				"Memory-mapped reading is not supported for the encoding " + this.charset);
+
+		this.schema = this.indexedRecords ? new IndexedRecord.Schema(this.names, this.types) : null;
+
+		this.whitespace = new boolean[256];
+		for (int i = 0; i < 256; i++) {
+			String decoded = new String(new byte[] {(byte) i}, this.charset);
+			this.whitespace[i] = decoded.length() == 1 && decoded.charAt(0) <= ' ';
+		}
+	}
+
+	@Override
+	protected void doOpen() throws Exception {
+		this.channel = FileChannel.open(this.resource.getFile().toPath(), StandardOpenOption.READ);
+
+		this.end = Math.min(this.endPosition, this.channel.size());
+		int maxRangeEnd = maxRangeEnd();
+
+		this.firstRecordPosition = skipLines(maxRangeEnd);
+		this.stride = this.recordLength > 0 ? this.recordLength : detectRecordLength(maxRangeEnd);
+		this.width = this.stride - terminatorLength();
+
+		long available = this.end - this.firstRecordPosition;
+		this.recordCount = available / this.stride;
+
+		if(this.width > 0 && available % this.stride >= this.width) {
+			// the last record is not followed by a line terminator
+			this.recordCount++;
+		}
+
+		if(this.strict && allRangesBounded() && this.width != maxRangeEnd) {
+			throw new IncorrectLineLengthException(maxRangeEnd, this.width);
+		}
+
+		this.recordsPerSegment = Math.max(1, MAX_SEGMENT_SIZE / this.stride);
+		this.columnBytes = new byte[this.stride];
+		this.nextRecord = 0;
+		this.segment = -1;
+	}
+
+	@Override
+	protected Map<Object, Object> doRead() throws Exception {
+		if(this.nextRecord >= this.recordCount) {
+			return null;
+		}
+
+		long record = this.nextRecord++;
+		ByteBuffer buffer = segmentFor(record);
+		int recordOffset = (int) ((record % this.recordsPerSegment) * this.stride);
+		int recordEnd = Math.min(recordOffset + this.width, buffer.limit());
+
+		if(this.filter != null) {
+			for (int i = 0; i < this.filter.size(); i++) {
+				if(!this.filter.matches(i, column(buffer, recordOffset, recordEnd, this.filter.getField(i)))) {
+					return RecordFilter.FILTERED;
+				}
+			}
+		}
+
+		Object[] values = new Object[this.ranges.length];
+
+		for (int i = 0; i < this.ranges.length; i++) {
+			String value = column(buffer, recordOffset, recordEnd, i);
+			values[i] = this.types != null ? this.types[i].parse(value) : value;
+		}
+
+		return record(values);
+	}
+
+	@Override
+	protected void jumpToItem(int itemIndex) {
+		this.nextRecord = itemIndex;
+	}
+
+	@Override
+	protected void doClose() throws Exception {
+		this.segmentBuffer = null;
+		this.segment = -1;
+
+		if(this.channel != null) {
+			this.channel.close();
+			this.channel = null;
+		}
+	}
+
+	private ByteBuffer segmentFor(long record) throws IOException {
+		long requested = record / this.recordsPerSegment;
+
+		if(requested != this.segment) {
+			long position = this.firstRecordPosition + requested * this.recordsPerSegment * this.stride;
+			long size = Math.min(this.recordsPerSegment * this.stride, this.end - position);
+
+			this.segmentBuffer = this.channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+			this.segment = requested;
+		}
+
+		return this.segmentBuffer;
+	}
+
+	private String column(ByteBuffer buffer, int recordOffset, int recordEnd, int column) {
+		Range range = this.ranges[column];
+		int from = Math.min(recordOffset + range.getMin() - 1, recordEnd);
+		int to = range.hasMaxValue() ? Math.min(recordOffset + range.getMax(), recordEnd) : recordEnd;
+
+		return column(buffer, from, to);
+	}
+
+	private String column(ByteBuffer buffer, int from, int to) {
+		while (from < to && this.whitespace[buffer.get(from) & 0xFF]) {
+			from++;
+		}
+		while (to > from && this.whitespace[buffer.get(to - 1) & 0xFF]) {
+			to--;
+		}
+
+		int length = to - from;
+
+		for (int i = 0; i < length; i++) {
+			this.columnBytes[i] = buffer.get(from + i);
+		}
+
+		return new String(this.columnBytes, 0, length, this.charset);
+	}
+
+	private Map<Object, Object> record(Object[] values) {
+		if(this.schema != null) {
+			return new IndexedRecord(this.schema, values);
+		}
+
+		Properties properties = new Properties();
+
+		for (int i = 0; i < values.length; i++) {
+			if(values[i] != null) {
+				properties.put(this.names[i], values[i]);
+			}
+		}
+
+		return properties;
+	}
+
+	/**
+	 * @return the position of the first record, after the lines to skip
+	 */
+	private long skipLines(int maxRangeEnd) throws IOException {
+		long position = this.startPosition;
+
+		for (int i = 0; i < this.linesToSkip && position < this.end; i++) {
+			long next = nextLineStart(position);
+
+			if(next < 0) {
+				// records are not terminated, so neither are the lines to skip
+				next = position + (this.recordLength > 0 ? this.recordLength : unterminatedRecordLength(maxRangeEnd));
+			}
+
+			position = next;
+		}
+
+		return Math.min(position, this.end);
+	}
+
+	private int detectRecordLength(int maxRangeEnd) throws IOException {
+		long next = nextLineStart(this.firstRecordPosition);
+
+		return next >= 0 ? (int) (next - this.firstRecordPosition) : unterminatedRecordLength(maxRangeEnd);
+	}
+
+	private int unterminatedRecordLength(int maxRangeEnd) {
+		Assert.state(allRangesBounded(), "Unable to detect the record length of " + this.resource.getDescription() +
+				", a record length is required when records are not terminated and the last range is unbounded");
+
+		return maxRangeEnd;
+	}
+
+	/**
+	 * @return the position following the next line feed at or after the given position,
+	 * or -1 if there is none before the end of the range
+	 */
+	private long nextLineStart(long position) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(SCAN_BUFFER_SIZE, Math.max(this.end - position, 1)));
+
+		while (position < this.end) {
+			buffer.clear();
+			buffer.limit((int) Math.min(buffer.capacity(), this.end - position));
+			int read = this.channel.read(buffer, position);
+
+			if(read <= 0) {
+				break;
+			}
+
+			for (int i = 0; i < read; i++) {
+				if(buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+
+			position += read;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * @return the number of line terminator bytes at the end of the first record
+	 */
+	private int terminatorLength() throws IOException {
+		int length = (int) Math.min(2, Math.min(this.stride, this.end - this.firstRecordPosition));
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		this.channel.read(buffer, this.firstRecordPosition + this.stride - length);
+
+		int terminatorLength = 0;
+		for (int i = length - 1; i >= 0 && isLineTerminator(buffer.get(i)); i--) {
+			terminatorLength++;
+		}
+
+		return terminatorLength;
+	}
+
+	private int maxRangeEnd() {
+		int max = 0;
+
+		for (Range range : this.ranges) {
+			max = Math.max(max, range.hasMaxValue() ? range.getMax() : range.getMin());
+		}
+
+		return max;
+	}
+
+	private boolean allRangesBounded() {
+		for (Range range : this.ranges) {
+			if(!range.hasMaxValue()) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean isLineTerminator(byte value) {
+		return value == '\n' || value == '\r';
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.util.Assert;
+
+/**
+ * {@link Partitioner} that creates one partition per file matching a resource pattern.
+ * The location of the file is stored under {@link #RESOURCE_KEY} and its size under
+ * {@link LargestFirstPartitionHandler#SIZE_KEY}, and partitions are named in order of
+ * decreasing size.
+ *
+ * The pattern is resolved when the partitions are created, so files that arrive between
+ * runs are picked up. On restart, the partitions of the failed execution are reused.
+ *
+ * @author Michael Minella
+ */
+public class MultiFilePartitioner implements Partitioner {
+
+	public static final String RESOURCE_KEY = "fileName";
+
+	private static final String PARTITION_PREFIX = "partition";
+
+	private final ResourcePatternResolver resourcePatternResolver;
+
+	private final String pattern;
+
+	public MultiFilePartitioner(ResourcePatternResolver resourcePatternResolver, String pattern) {
+		Assert.notNull(resourcePatternResolver, "A resource pattern resolver is required");
+		Assert.hasText(pattern, "A resource pattern is required");
+
+		this.resourcePatternResolver = resourcePatternResolver;
+		this.pattern = pattern;
+	}
+
+	@Override
+	public Map<String, ExecutionContext> partition(int gridSize) {
+		Resource[] resources;
+		long[] sizes;
+
+		try {
+			resources = this.resourcePatternResolver.getResources(this.pattern);
+			sizes = new long[resources.length];
+
+			for (int i = 0; i < resources.length; i++) {
+				sizes[i] = resources[i].contentLength();
+			}
+		}
+		catch (IOException e) {
+			throw new ItemStreamException("Unable to resolve the resources matching " + this.pattern, e);
+		}
+
+		Integer[] order = new Integer[resources.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+
+		Arrays.sort(order, Comparator.comparingLong((Integer i) -> sizes[i]).reversed());
+
+		Map<String, ExecutionContext> contexts = new LinkedHashMap<>(resources.length);
+
+		for (int i = 0; i < order.length; i++) {
+			Resource resource = resources[order[i]];
+			ExecutionContext context = new ExecutionContext();
+
+			try {
+				context.putString(RESOURCE_KEY, resource.getURL().toExternalForm());
+			}
+			catch (IOException e) {
+				throw new ItemStreamException("Unable to resolve the URL of " + resource.getDescription(), e);
+			}
+
+			context.putLong(LargestFirstPartitionHandler.SIZE_KEY, sizes[order[i]]);
+			contexts.put(PARTITION_PREFIX + i, context);
+		}
+
+		return contexts;
+	}
+}
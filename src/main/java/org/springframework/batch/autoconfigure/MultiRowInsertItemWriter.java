@@ -0,0 +1,215 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.database.JdbcParameterUtils;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ItemWriter} that inserts the items of a chunk with statements of several rows
+ * each, rewriting a single row {@code INSERT INTO ... VALUES (?, ...)} into
+ * {@code INSERT INTO ... VALUES (?, ...), (?, ...), ...}. It saves the round trips and
+ * parsing of a statement per item with drivers that do not rewrite batches themselves.
+ *
+ * A chunk is written with a batch of statements of {@code rowsPerInsert} rows, and one
+ * statement for the remaining items. The SQL of each width is built once. The number of
+ * parameters of a statement, {@code rowsPerInsert} times the number of parameters of a
+ * row, must stay within the limit of the driver.
+ *
+ * @author Michael Minella
+ */
+public class MultiRowInsertItemWriter implements ItemWriter<Map<Object, Object>> {
+
+	private static final Pattern INSERT = Pattern.compile("^\\s*(INSERT\\s+INTO\\s+.+?\\s+VALUES)\\s*(\\(.*\\))\\s*;?\\s*$",
+			Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+	private final JdbcOperations jdbcTemplate;
+
+	private final JdbcBatchItemWriterAutoConfiguration.MapPreparedStatementSetter preparedStatementSetter;
+
+	private final int rowsPerInsert;
+
+	private final String insert;
+
+	private final String row;
+
+	private final int parameterCount;
+
+	private final Map<Integer, String> statements = new ConcurrentHashMap<>();
+
+	private boolean assertUpdates = true;
+
+	/**
+	 * @param dataSource the data source to write to
+	 * @param sql a single row insert with {@code ?} parameters
+	 * @param preparedStatementSetter the setter binding the parameters of a row
+	 * @param rowsPerInsert the number of rows inserted per statement
+	 */
+	public MultiRowInsertItemWriter(DataSource dataSource, String sql,
+			JdbcBatchItemWriterAutoConfiguration.MapPreparedStatementSetter preparedStatementSetter, int rowsPerInsert) {
+		Assert.notNull(dataSource, "A data source is required");
+		Assert.isTrue(isRewritable(sql), "The SQL must be a single row INSERT INTO ... VALUES (...) with ? parameters: " + sql);
+		Assert.notNull(preparedStatementSetter, "A prepared statement setter is required");
+		Assert.isTrue(rowsPerInsert > 0, "The number of rows per insert must be greater than zero");
+
+		Matcher matcher = INSERT.matcher(sql);
+		matcher.matches();
+
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.preparedStatementSetter = preparedStatementSetter;
+		this.rowsPerInsert = rowsPerInsert;
+		this.insert = matcher.group(1);
+		this.row = matcher.group(2);
+		this.parameterCount = JdbcParameterUtils.countParameterPlaceholders(sql, new ArrayList<>());
+	}
+
+	/**
+	 * @param assertUpdates true to fail when fewer rows are inserted than items written
+	 */
+	public void setAssertUpdates(boolean assertUpdates) {
+		this.assertUpdates = assertUpdates;
+	}
+
+	/**
+	 * @param sql a statement
+	 * @return true if the statement is a single row insert with {@code ?} parameters
+	 */
+	public static boolean isRewritable(String sql) {
+		if(sql == null) {
+			return false;
+		}
+
+		Matcher matcher = INSERT.matcher(sql);
+		List<String> namedParameters = new ArrayList<>();
+
+		return matcher.matches() && isSingleRow(matcher.group(2)) &&
+				JdbcParameterUtils.countParameterPlaceholders(sql, namedParameters) > 0 && namedParameters.isEmpty();
+	}
+
+	@Override
+	public void write(List<? extends Map<Object, Object>> items) throws Exception {
+		int statements = items.size() / this.rowsPerInsert;
+		int remainder = items.size() % this.rowsPerInsert;
+		long updated = 0;
+
+		if(statements > 0) {
+			updated = add(updated, insert(items, 0, statements, this.rowsPerInsert));
+		}
+
+		if(remainder > 0) {
+			updated = add(updated, insert(items, statements * this.rowsPerInsert, 1, remainder));
+		}
+
+		if(this.assertUpdates && updated >= 0 && updated < items.size()) {
+			throw new EmptyResultDataAccessException("Only " + updated + " rows were inserted for " +
+					items.size() + " items", items.size());
+		}
+	}
+
+	/**
+	 * Inserts {@code statements} times {@code rows} items from {@code start}, batching the
+	 * statements when there are several.
+	 *
+	 * @return the number of rows inserted, or -1 if the driver did not report it
+	 */
+	private long insert(List<? extends Map<Object, Object>> items, int start, int statements, int rows) {
+		return this.jdbcTemplate.execute(statement(rows), (PreparedStatementCallback<Long>) (ps) -> {
+			int index = start;
+
+			for (int i = 0; i < statements; i++) {
+				for (int j = 0; j < rows; j++) {
+					this.preparedStatementSetter.setValues(items.get(index++), ps, j * this.parameterCount);
+				}
+
+				if(statements > 1) {
+					ps.addBatch();
+				}
+			}
+
+			if(statements == 1) {
+				return (long) ps.executeUpdate();
+			}
+
+			long updated = 0;
+
+			for (int count : ps.executeBatch()) {
+				updated = add(updated, count == Statement.SUCCESS_NO_INFO ? -1 : count);
+			}
+
+			return updated;
+		});
+	}
+
+	private String statement(int rows) {
+		return this.statements.computeIfAbsent(rows, (count) -> {
+			StringBuilder statement = new StringBuilder(this.insert.length() + count * (this.row.length() + 2));
+			statement.append(this.insert).append(' ').append(this.row);
+
+			for (int i = 1; i < count; i++) {
+				statement.append(", ").append(this.row);
+			}
+
+			return statement.toString();
+		});
+	}
+
+	private static long add(long updated, long count) {
+		return updated < 0 || count < 0 ? -1 : updated + count;
+	}
+
+	/**
+	 * @return true if the values are one parenthesized row, parentheses in quotes aside
+	 */
+	private static boolean isSingleRow(String values) {
+		int depth = 0;
+		char quote = 0;
+
+		for (int i = 0; i < values.length(); i++) {
+			char c = values.charAt(i);
+
+			if(quote != 0) {
+				if(c == quote) {
+					quote = 0;
+				}
+			}
+			else if(c == '\'' || c == '"') {
+				quote = c;
+			}
+			else if(c == '(') {
+				depth++;
+			}
+			else if(c == ')' && --depth == 0 && i < values.length() - 1) {
+				return false;
+			}
+		}
+
+		return depth == 0 && quote == 0;
+	}
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ItemWriter} that splits each chunk into sub-batches written at the same time
+ * by its delegate, each on a connection and in a transaction of its own.
+ *
+ * The items are split into contiguous slices, or by the hash of routing key fields so
+ * that items with the same key go to the same connection and never wait on each
+ * other's locks.
+ *
+ * The chunk is written either entirely or not at all: the sub-batches are committed
+ * only once all of them are written, and all rolled back if one fails, whose exception
+ * is then rethrown as is, so that the chunk can be retried. Should the sub-batches not
+ * all be written within the timeout, typically because they wait on each other's locks
+ * on a database that locks whole tables, they are rolled back as well. Only a failure
+ * while committing can leave part of a chunk written.
+ *
+ * The sub-batches do not take part in the chunk transaction, which commits after them:
+ * if it fails, a restart writes the chunk again. The data source must allow one more
+ * connection per sub-batch, besides the one of the chunk transaction.
+ *
+ * As the threads of the sub-batches wait for the others of their chunk, there is one
+ * per sub-batch of each chunk written at the same time, by the threads of a
+ * multi-threaded step or the partitions of a partitioned step sharing the writer.
+ *
+ * @author Michael Minella
+ */
+public class ParallelJdbcItemWriter implements ItemWriter<Map<Object, Object>>, DisposableBean {
+
+	private final ItemWriter<Map<Object, Object>> delegate;
+
+	private final PlatformTransactionManager transactionManager;
+
+	private final int connections;
+
+	private final IndexedRecord.Projection routingKeys;
+
+	private final Duration timeout;
+
+	private final ExecutorService executor;
+
+	/**
+	 * @param delegate the writer of each sub-batch, on the connection of its transaction
+	 * @param dataSource the data source of the delegate
+	 * @param connections the maximum number of sub-batches per chunk
+	 * @param concurrentChunks the maximum number of chunks written at the same time
+	 * @param routingKeys the fields routing the items to the sub-batches, or
+	 * {@code null} to split the chunks into slices
+	 * @param timeout the time allowed to write the sub-batches
+	 */
+	public ParallelJdbcItemWriter(ItemWriter<Map<Object, Object>> delegate, DataSource dataSource, int connections,
+			int concurrentChunks, String[] routingKeys, Duration timeout) {
+		Assert.notNull(delegate, "A delegate is required");
+		Assert.notNull(dataSource, "A data source is required");
+		Assert.isTrue(connections > 1, "The number of connections must be greater than one");
+		Assert.isTrue(concurrentChunks > 0, "The number of concurrent chunks must be positive");
+		Assert.isTrue(timeout != null && !timeout.isNegative() && !timeout.isZero(), "The timeout must be positive");
+
+		this.delegate = delegate;
+		this.transactionManager = new DataSourceTransactionManager(dataSource);
+		this.connections = connections;
+		this.routingKeys = routingKeys != null && routingKeys.length > 0 ? new IndexedRecord.Projection(routingKeys) : null;
+		this.timeout = timeout;
+
+		AtomicInteger threadCount = new AtomicInteger();
+
+		this.executor = Executors.newFixedThreadPool(connections * concurrentChunks, (runnable) -> {
+			Thread thread = new Thread(runnable, "jdbc-writer-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+
+			return thread;
+		});
+	}
+
+	@Override
+	public void write(List<? extends Map<Object, Object>> items) throws Exception {
+		if(items.isEmpty()) {
+			return;
+		}
+
+		List<List<Map<Object, Object>>> batches = split(items);
+
+		if(batches.size() == 1) {
+			this.delegate.write(batches.get(0));
+
+			return;
+		}
+
+		CountDownLatch written = new CountDownLatch(batches.size());
+		AtomicBoolean failed = new AtomicBoolean();
+		CompletableFuture<Boolean> commit = new CompletableFuture<>();
+		List<Future<?>> futures = new ArrayList<>(batches.size());
+
+		try {
+			for (List<Map<Object, Object>> batch : batches) {
+				futures.add(this.executor.submit(() -> {
+					write(batch, written, failed, commit);
+
+					return null;
+				}));
+			}
+
+			boolean complete = written.await(this.timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+			commit.complete(complete && !failed.get());
+
+			Exception failure = complete ? null : new TimeoutException("The sub-batches of the chunk were not all " +
+					"written within " + this.timeout + ", they may be waiting on each other's locks");
+
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				}
+				catch (ExecutionException e) {
+					if(failure == null) {
+						Throwable cause = e.getCause();
+						failure = cause instanceof Exception ? (Exception) cause : e;
+					}
+				}
+			}
+
+			if(failure != null) {
+				throw failure;
+			}
+		}
+		finally {
+			commit.complete(false);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		this.executor.shutdownNow();
+	}
+
+	private void write(List<Map<Object, Object>> batch, CountDownLatch written, AtomicBoolean failed,
+			CompletableFuture<Boolean> commit) throws Exception {
+		TransactionStatus transaction = this.transactionManager.getTransaction(
+				new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+
+		try {
+			this.delegate.write(batch);
+		}
+		catch (Exception | Error e) {
+			failed.set(true);
+			this.transactionManager.rollback(transaction);
+			throw e;
+		}
+		finally {
+			written.countDown();
+		}
+
+		boolean committed;
+
+		try {
+			committed = commit.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			committed = false;
+		}
+
+		if(committed) {
+			this.transactionManager.commit(transaction);
+		}
+		else {
+			this.transactionManager.rollback(transaction);
+		}
+	}
+
+	private List<List<Map<Object, Object>>> split(List<? extends Map<Object, Object>> items) {
+		int count = Math.min(this.connections, items.size());
+		List<List<Map<Object, Object>>> batches = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++) {
+			batches.add(new ArrayList<>(items.size() / count + 1));
+		}
+
+		for (int i = 0; i < items.size(); i++) {
+			Map<Object, Object> item = items.get(i);
+			int batch = this.routingKeys != null ? (this.routingKeys.hash(item) & Integer.MAX_VALUE) % count : i * count / items.size();
+
+			batches.get(batch).add(item);
+		}
+
+		batches.removeIf(List::isEmpty);
+
+		return batches;
+	}
+}
@@ -0,0 +1,343 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.NonTransientResourceException;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.util.Assert;
+
+/**
+ * {@link Tasklet} that runs reading, processing and writing as separate stages, so
+ * that the input, the CPU and the output are all kept busy.
+ *
+ * <ul>
+ * <li>A reader thread reads chunks of {@code chunkSize} items and captures the state of
+ * the reader after each chunk.</li>
+ * <li>A pool of processor threads processes the chunks, several at a time.</li>
+ * <li>Each execution of the tasklet, in its own transaction on the step thread, writes
+ * the next chunk in read order.</li>
+ * </ul>
+ *
+ * The stages are connected by a queue of at most {@code capacity} chunks, in read
+ * order. When it is full the reader waits, so memory stays bounded when the writer
+ * falls behind. As chunks are committed in read order, {@link #update(ExecutionContext)}
+ * saves the reader state captured after the last committed chunk, so a restart resumes
+ * after it as with a chunk oriented step.
+ *
+ * The tasklet must be registered as a stream of its step. Failures are not skipped or
+ * retried: the first failure of any stage fails the step.
+ *
+ * @author Michael Minella
+ */
+public class PipelineTasklet<I, O> implements Tasklet, ItemStream {
+
+	private final ItemReader<I> reader;
+
+	private final ItemProcessor<I, O> processor;
+
+	private final ItemWriter<O> writer;
+
+	private final int chunkSize;
+
+	private final int processorThreads;
+
+	private final int capacity;
+
+	private BlockingQueue<Batch<I, O>> batches;
+
+	private ExecutorService processors;
+
+	private Thread readerThread;
+
+	private volatile boolean stopped;
+
+	private ExecutionContext committed;
+
+	/**
+	 * @param reader the reader, only ever called from the reader thread
+	 * @param processor the processor, or {@code null} to write the items as read
+	 * @param writer the writer, called on the step thread
+	 * @param chunkSize the number of items per chunk
+	 * @param processorThreads the number of chunks processed at a time
+	 * @param capacity the maximum number of chunks read ahead of the writer
+	 */
+	public PipelineTasklet(ItemReader<I> reader, ItemProcessor<I, O> processor, ItemWriter<O> writer,
+			int chunkSize, int processorThreads, int capacity) {
+		Assert.notNull(reader, "A reader is required");
+		Assert.notNull(writer, "A writer is required");
+		Assert.isTrue(chunkSize > 0, "The chunk size must be greater than zero");
+		Assert.isTrue(processorThreads > 0, "The number of processor threads must be greater than zero");
+		Assert.isTrue(capacity > 0, "The capacity must be greater than zero");
+
+		this.reader = reader;
+		this.processor = processor;
+		this.writer = writer;
+		this.chunkSize = chunkSize;
+		this.processorThreads = processorThreads;
+		this.capacity = capacity;
+	}
+
+	@Override
+	public void open(ExecutionContext executionContext) throws ItemStreamException {
+		if(this.reader instanceof ItemStream) {
+			((ItemStream) this.reader).open(executionContext);
+		}
+
+		this.committed = new ExecutionContext();
+		updateReader(this.committed);
+
+		StepContext stepContext = StepSynchronizationManager.getContext();
+		StepExecution stepExecution = stepContext != null ? stepContext.getStepExecution() : null;
+		String threadNamePrefix = stepExecution != null ? stepExecution.getStepName() + "-" : "pipeline-";
+
+		AtomicInteger processorCount = new AtomicInteger();
+
+		this.stopped = false;
+		this.batches = new ArrayBlockingQueue<>(this.capacity);
+		this.processors = Executors.newFixedThreadPool(this.processorThreads, (runnable) -> {
+			Thread thread = new Thread(() -> runInStep(stepExecution, runnable),
+					threadNamePrefix + "processor-" + processorCount.incrementAndGet());
+			thread.setDaemon(true);
+
+			return thread;
+		});
+		this.readerThread = new Thread(() -> runInStep(stepExecution, this::readBatches), threadNamePrefix + "reader");
+		this.readerThread.setDaemon(true);
+		this.readerThread.start();
+	}
+
+	@Override
+	public void update(ExecutionContext executionContext) throws ItemStreamException {
+		if(this.committed != null) {
+			for (Map.Entry<String, Object> entry : this.committed.entrySet()) {
+				executionContext.put(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	@Override
+	public void close() throws ItemStreamException {
+		this.stopped = true;
+
+		if(this.readerThread != null) {
+			this.readerThread.interrupt();
+
+			try {
+				this.readerThread.join();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ItemStreamException("Interrupted while stopping the reader stage", e);
+			}
+			finally {
+				this.readerThread = null;
+			}
+		}
+
+		if(this.processors != null) {
+			this.processors.shutdownNow();
+			this.processors = null;
+		}
+
+		this.batches = null;
+
+		if(this.reader instanceof ItemStream) {
+			((ItemStream) this.reader).close();
+		}
+	}
+
+	@Override
+	public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+		Batch<I, O> batch = this.batches.take();
+
+		if(batch.failure != null) {
+			throw batch.failure;
+		}
+
+		List<O> outputs = batch.outputs();
+
+		if(!outputs.isEmpty()) {
+			this.writer.write(outputs);
+		}
+
+		for (int i = 0; i < batch.inputs.size(); i++) {
+			contribution.incrementReadCount();
+		}
+
+		contribution.incrementFilterCount(batch.inputs.size() - outputs.size());
+		contribution.incrementWriteCount(outputs.size());
+
+		this.committed = batch.state;
+
+		return batch.last ? RepeatStatus.FINISHED : RepeatStatus.CONTINUABLE;
+	}
+
+	private void readBatches() {
+		try {
+			while (!this.stopped) {
+				Batch<I, O> batch = new Batch<>(this.chunkSize);
+
+				try {
+					for (int i = 0; i < this.chunkSize; i++) {
+						I item = this.reader.read();
+
+						if(item == null) {
+							batch.last = true;
+							break;
+						}
+
+						batch.inputs.add(item);
+					}
+
+					updateReader(batch.state);
+				}
+				catch (Exception e) {
+					batch.failure = e;
+					batch.last = true;
+				}
+
+				if(batch.failure == null && this.processor != null && !batch.inputs.isEmpty()) {
+					batch.processed = this.processors.submit(() -> process(batch.inputs));
+				}
+
+				this.batches.put(batch);
+
+				if(batch.last) {
+					return;
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			// stopped by close()
+		}
+		catch (RuntimeException | Error e) {
+			Batch<I, O> batch = new Batch<>(0);
+			batch.failure = new NonTransientResourceException("The reader stage failed", e);
+			batch.last = true;
+
+			try {
+				// waits for room like any batch, the step thread takes them all until this one
+				this.batches.put(batch);
+			}
+			catch (InterruptedException interrupted) {
+				// stopped by close()
+			}
+		}
+	}
+
+	private List<O> process(List<I> inputs) throws Exception {
+		List<O> outputs = new ArrayList<>(inputs.size());
+
+		for (I input : inputs) {
+			O output = this.processor.process(input);
+
+			if(output != null) {
+				outputs.add(output);
+			}
+		}
+
+		return outputs;
+	}
+
+	private void updateReader(ExecutionContext executionContext) {
+		if(this.reader instanceof ItemStream) {
+			((ItemStream) this.reader).update(executionContext);
+		}
+	}
+
+	/**
+	 * Makes the step context available to step scoped beans used by the stages.
+	 */
+	private static void runInStep(StepExecution stepExecution, Runnable runnable) {
+		if(stepExecution == null) {
+			runnable.run();
+			return;
+		}
+
+		StepSynchronizationManager.register(stepExecution);
+
+		try {
+			runnable.run();
+		}
+		finally {
+			StepSynchronizationManager.close();
+		}
+	}
+
+	/**
+	 * A chunk in read order: its items, the state of the reader after it, and its
+	 * processing.
+	 */
+	private static class Batch<I, O> {
+
+		private final List<I> inputs;
+
+		private final ExecutionContext state = new ExecutionContext();
+
+		private Future<List<O>> processed;
+
+		private Exception failure;
+
+		private boolean last;
+
+		Batch(int chunkSize) {
+			this.inputs = new ArrayList<>(chunkSize);
+		}
+
+		@SuppressWarnings("unchecked")
+		List<O> outputs() throws Exception {
+			if(this.processed == null) {
+				return (List<O>) this.inputs;
+			}
+
+			try {
+				return this.processed.get();
+			}
+			catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+
+				if(cause instanceof Exception) {
+					throw (Exception) cause;
+				}
+
+				throw e;
+			}
+		}
+	}
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.NonTransientResourceException;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ItemStreamReader} that reads ahead of the chunk loop on a background thread,
+ * so that reading and parsing overlap with processing and writing. Up to
+ * {@code capacity} items are buffered.
+ *
+ * After every item, the background thread captures the state of the delegate into an
+ * {@link ExecutionContext} that travels with the item. {@link #update(ExecutionContext)}
+ * saves the state captured after the last item handed to the step rather than the
+ * state of the delegate, which may be ahead, so a restart resumes after the last item
+ * that was actually processed. The contexts are recycled through a ring that is two
+ * larger than the buffer: one for the last item returned and one being filled.
+ *
+ * Exceptions thrown by the delegate are rethrown in order by {@link #read()}, and
+ * reading continues after them so that skips behave as without read-ahead. Each thread
+ * that opens the reader gets its own buffer, so one instance can be shared by the
+ * worker steps of a partitioned step. The background thread runs in the step context of
+ * the thread that opened the reader, so the delegate may be step scoped. A single step
+ * execution must not read from more than one thread.
+ *
+ * @author Michael Minella
+ */
+public class PrefetchingItemReader<T> implements ItemStreamReader<T> {
+
+	private final ItemReader<T> delegate;
+
+	private final int capacity;
+
+	private final ThreadLocal<Prefetcher> prefetchers = new ThreadLocal<>();
+
+	/**
+	 * @param delegate the reader to read ahead from, which is opened, updated and closed
+	 * if it is an {@link ItemStream}
+	 * @param capacity the maximum number of items read ahead
+	 */
+	public PrefetchingItemReader(ItemReader<T> delegate, int capacity) {
+		Assert.notNull(delegate, "A delegate is required");
+		Assert.isTrue(capacity > 0, "The capacity must be greater than zero");
+
+		this.delegate = delegate;
+		this.capacity = capacity;
+	}
+
+	@Override
+	public void open(ExecutionContext executionContext) throws ItemStreamException {
+		Assert.state(this.prefetchers.get() == null, "The reader is already open on this thread");
+
+		if(this.delegate instanceof ItemStream) {
+			((ItemStream) this.delegate).open(executionContext);
+		}
+
+		Prefetcher prefetcher = new Prefetcher();
+		updateDelegate(prefetcher.current);
+		this.prefetchers.set(prefetcher);
+
+		prefetcher.start();
+	}
+
+	@Override
+	public T read() throws Exception {
+		Prefetcher prefetcher = this.prefetchers.get();
+		Assert.state(prefetcher != null, "The reader must be opened before it is read");
+
+		return prefetcher.next();
+	}
+
+	@Override
+	public void update(ExecutionContext executionContext) throws ItemStreamException {
+		Prefetcher prefetcher = this.prefetchers.get();
+
+		if(prefetcher != null) {
+			for (Map.Entry<String, Object> entry : prefetcher.current.entrySet()) {
+				executionContext.put(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	@Override
+	public void close() throws ItemStreamException {
+		Prefetcher prefetcher = this.prefetchers.get();
+		this.prefetchers.remove();
+
+		if(prefetcher != null) {
+			prefetcher.stop();
+		}
+
+		if(this.delegate instanceof ItemStream) {
+			((ItemStream) this.delegate).close();
+		}
+	}
+
+	private void updateDelegate(ExecutionContext executionContext) {
+		if(this.delegate instanceof ItemStream) {
+			((ItemStream) this.delegate).update(executionContext);
+		}
+	}
+
+	/**
+	 * An item, or the exception thrown instead of it, and the state of the delegate
+	 * after reading it.
+	 */
+	private static class Entry<T> {
+
+		private final ExecutionContext state = new ExecutionContext();
+
+		private T item;
+
+		private Exception exception;
+
+		private boolean last;
+	}
+
+	private class Prefetcher implements Runnable {
+
+		private final BlockingQueue<Entry<T>> queue = new ArrayBlockingQueue<>(capacity);
+
+		private final Entry<T>[] ring;
+
+		private final Thread thread;
+
+		private final StepExecution stepExecution;
+
+		private ExecutionContext current = new ExecutionContext();
+
+		private boolean exhausted;
+
+		private volatile boolean stopped;
+
+		@SuppressWarnings("unchecked")
+		Prefetcher() {
+			this.ring = new Entry[capacity + 2];
+
+			for (int i = 0; i < this.ring.length; i++) {
+				this.ring[i] = new Entry<>();
+			}
+
+			StepContext stepContext = StepSynchronizationManager.getContext();
+			this.stepExecution = stepContext != null ? stepContext.getStepExecution() : null;
+
+			this.thread = new Thread(this, Thread.currentThread().getName() + "-prefetch");
+			this.thread.setDaemon(true);
+		}
+
+		void start() {
+			this.thread.start();
+		}
+
+		T next() throws Exception {
+			if(this.exhausted) {
+				return null;
+			}
+
+			Entry<T> entry = this.queue.take();
+			this.current = entry.state;
+
+			this.exhausted = entry.last;
+
+			if(entry.exception != null) {
+				throw entry.exception;
+			}
+
+			return entry.item;
+		}
+
+		void stop() {
+			this.stopped = true;
+			this.thread.interrupt();
+
+			try {
+				this.thread.join();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ItemStreamException("Interrupted while stopping the read-ahead", e);
+			}
+		}
+
+		@Override
+		public void run() {
+			// makes the step context available to a step scoped delegate
+			if(this.stepExecution != null) {
+				StepSynchronizationManager.register(this.stepExecution);
+			}
+
+			try {
+				readAhead();
+			}
+			finally {
+				if(this.stepExecution != null) {
+					StepSynchronizationManager.close();
+				}
+			}
+		}
+
+		private void readAhead() {
+			int index = 0;
+
+			try {
+				while (!this.stopped) {
+					Entry<T> entry = this.ring[index];
+					index = (index + 1) % this.ring.length;
+
+					try {
+						entry.item = delegate.read();
+						entry.exception = null;
+					}
+					catch (Exception e) {
+						entry.item = null;
+						entry.exception = e;
+					}
+
+					entry.last = entry.item == null && entry.exception == null;
+					updateDelegate(entry.state);
+
+					this.queue.put(entry);
+
+					if(entry.last) {
+						return;
+					}
+				}
+			}
+			catch (InterruptedException e) {
+				// stopped by close()
+			}
+			catch (RuntimeException | Error e) {
+				try {
+					this.queue.put(failed(this.ring[index], e));
+				}
+				catch (InterruptedException interrupted) {
+					// stopped by close()
+				}
+			}
+		}
+
+		private Entry<T> failed(Entry<T> entry, Throwable cause) {
+			entry.item = null;
+			// the delegate is not described, its toString() may fail like its read()
+			entry.exception = new NonTransientResourceException("Unable to read ahead", cause);
+			entry.last = true;
+
+			return entry;
+		}
+	}
+}
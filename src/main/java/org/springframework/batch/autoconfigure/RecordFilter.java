@@ -0,0 +1,247 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.util.Assert;
+
+/**
+ * Declarative filter evaluated against the raw values of a line before a record is
+ * built for it. Each {@link Condition} applies to one named field and all conditions
+ * must match for the line to be kept.
+ *
+ * Line mappers return {@link #FILTERED} for lines that do not match, and the
+ * {@link FilteringItemReader} reads past them, so filtered lines still count as read
+ * for restart purposes.
+ *
+ * @author Michael Minella
+ */
+public class RecordFilter {
+
+	/**
+	 * Marker returned in place of a record for a line that was filtered out.
+	 */
+	public static final Map<Object, Object> FILTERED = Collections.unmodifiableMap(new HashMap<>());
+
+	private final int[] fields;
+
+	private final Condition[] conditions;
+
+	/**
+	 * @param names the names of the fields of a record
+	 * @param conditions the conditions that must all match
+	 */
+	public RecordFilter(String[] names, List<Condition> conditions) {
+		Assert.notEmpty(names, "Names are required to filter records");
+		Assert.notEmpty(conditions, "At least one condition is required");
+
+		this.fields = new int[conditions.size()];
+		this.conditions = conditions.toArray(new Condition[0]);
+
+		List<String> nameList = Arrays.asList(names);
+
+		for (int i = 0; i < this.conditions.length; i++) {
+			this.fields[i] = nameList.indexOf(this.conditions[i].getField());
+
+			Assert.isTrue(this.fields[i] >= 0, "Unable to filter on the unknown field " + this.conditions[i].getField());
+		}
+	}
+
+	/**
+	 * @return the number of conditions
+	 */
+	public int size() {
+		return this.conditions.length;
+	}
+
+	/**
+	 * @param condition the index of a condition
+	 * @return the position in the record of the field the condition applies to
+	 */
+	public int getField(int condition) {
+		return this.fields[condition];
+	}
+
+	/**
+	 * @param condition the index of a condition
+	 * @param chars buffer holding the trimmed value of the field
+	 * @param start the start of the value (inclusive)
+	 * @param end the end of the value (exclusive)
+	 * @return true if the value matches the condition
+	 */
+	public boolean matches(int condition, char[] chars, int start, int end) {
+		return this.conditions[condition].matches(chars, start, end);
+	}
+
+	/**
+	 * @param condition the index of a condition
+	 * @param value the trimmed value of the field
+	 * @return true if the value matches the condition
+	 */
+	public boolean matches(int condition, String value) {
+		char[] chars = value.toCharArray();
+
+		return this.conditions[condition].matches(chars, 0, chars.length);
+	}
+
+	/**
+	 * A condition on a single field. The value must be equal to {@code equals}, start
+	 * with {@code prefix} and lie between {@code min} and {@code max} (both inclusive),
+	 * for each of those that is set. Range bounds are compared as numbers when the bound
+	 * is a number and the value parses as one, and as strings otherwise.
+	 */
+	public static class Condition {
+
+		private String field;
+
+		private char[] equals;
+
+		private char[] prefix;
+
+		private Bound min;
+
+		private Bound max;
+
+		public String getField() {
+			return field;
+		}
+
+		public void setField(String field) {
+			this.field = field;
+		}
+
+		public String getEquals() {
+			return equals != null ? new String(equals) : null;
+		}
+
+		public void setEquals(String equals) {
+			this.equals = equals != null ? equals.toCharArray() : null;
+		}
+
+		public String getPrefix() {
+			return prefix != null ? new String(prefix) : null;
+		}
+
+		public void setPrefix(String prefix) {
+			this.prefix = prefix != null ? prefix.toCharArray() : null;
+		}
+
+		public String getMin() {
+			return min != null ? min.text : null;
+		}
+
+		public void setMin(String min) {
+			this.min = min != null ? new Bound(min) : null;
+		}
+
+		public String getMax() {
+			return max != null ? max.text : null;
+		}
+
+		public void setMax(String max) {
+			this.max = max != null ? new Bound(max) : null;
+		}
+
+		boolean matches(char[] chars, int start, int end) {
+			int length = end - start;
+
+			if(this.equals != null && (this.equals.length != length || !regionMatches(chars, start, this.equals))) {
+				return false;
+			}
+
+			if(this.prefix != null && (this.prefix.length > length || !regionMatches(chars, start, this.prefix))) {
+				return false;
+			}
+
+			if(this.min != null || this.max != null) {
+				BigDecimal number = (isNumeric(this.min) || isNumeric(this.max)) ? parseNumber(chars, start, end) : null;
+
+				if(this.min != null && this.min.compareTo(chars, start, end, number) > 0) {
+					return false;
+				}
+
+				if(this.max != null && this.max.compareTo(chars, start, end, number) < 0) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		private static boolean isNumeric(Bound bound) {
+			return bound != null && bound.number != null;
+		}
+
+		private static boolean regionMatches(char[] chars, int start, char[] expected) {
+			for (int i = 0; i < expected.length; i++) {
+				if(chars[start + i] != expected[i]) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		private static BigDecimal parseNumber(char[] chars, int start, int end) {
+			try {
+				return start < end ? new BigDecimal(chars, start, end - start) : null;
+			}
+			catch (NumberFormatException e) {
+				return null;
+			}
+		}
+	}
+
+	private static class Bound {
+
+		private final String text;
+
+		private final char[] chars;
+
+		private final BigDecimal number;
+
+		Bound(String text) {
+			this.text = text;
+			this.chars = text.toCharArray();
+			this.number = Condition.parseNumber(this.chars, 0, this.chars.length);
+		}
+
+		/**
+		 * Compares the bound to a value, numerically if both are numbers.
+		 */
+		int compareTo(char[] chars, int start, int end, BigDecimal value) {
+			if(this.number != null && value != null) {
+				return this.number.compareTo(value);
+			}
+
+			int length = Math.min(this.chars.length, end - start);
+
+			for (int i = 0; i < length; i++) {
+				if(this.chars[i] != chars[start + i]) {
+					return this.chars[i] - chars[start + i];
+				}
+			}
+
+			return this.chars.length - (end - start);
+		}
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.file.LineMapper;
+import org.springframework.core.io.Resource;
+
+/**
+ * {@link FlatFileItemReader} that saves the byte position and line number of the next
+ * line in the {@link ExecutionContext}. On restart, the file is opened at the saved
+ * position instead of reading and discarding every line that was already processed.
+ *
+ * Compressed files are read through a {@link GzipBufferedReaderFactory}, in which case
+ * the saved position is the position of the gzip member containing the next line along
+ * with the offset of the line within the uncompressed member.
+ *
+ * The resource must be a file and the encoding must be supported by the
+ * {@link ByteRangeBufferedReaderFactory}.
+ *
+ * @author Michael Minella
+ */
+public class SeekableFlatFileItemReader<T> extends FlatFileItemReader<T> {
+
+	private static final String POSITION_KEY = "position";
+
+	private static final String OFFSET_KEY = "offset";
+
+	private static final String LINE_KEY = "line";
+
+	private final long startPosition;
+
+	private final long endPosition;
+
+	private boolean compressed;
+
+	private int decompressionThreads = 1;
+
+	private long openPosition;
+
+	private long openOffset;
+
+	private int linesToSkip;
+
+	private int lineOffset;
+
+	private boolean positioned;
+
+	private ByteRangeBufferedReaderFactory.ByteRangeBufferedReader reader;
+
+	public SeekableFlatFileItemReader() {
+		this(0, Long.MAX_VALUE);
+	}
+
+	/**
+	 * @param startPosition the byte position of the first line to read
+	 * @param endPosition the byte position after the last line to read
+	 */
+	public SeekableFlatFileItemReader(long startPosition, long endPosition) {
+		this.startPosition = startPosition;
+		this.endPosition = endPosition;
+
+		super.setBufferedReaderFactory(this::createReader);
+	}
+
+	/**
+	 * @param compressed true if the resource is gzip compressed
+	 */
+	public void setCompressed(boolean compressed) {
+		this.compressed = compressed;
+	}
+
+	/**
+	 * @param decompressionThreads the number of threads used to inflate block
+	 * compressed resources
+	 */
+	public void setDecompressionThreads(int decompressionThreads) {
+		this.decompressionThreads = decompressionThreads;
+	}
+
+	@Override
+	public void setLinesToSkip(int linesToSkip) {
+		this.linesToSkip = linesToSkip;
+		super.setLinesToSkip(linesToSkip);
+	}
+
+	@Override
+	public void setLineMapper(LineMapper<T> lineMapper) {
+		super.setLineMapper((line, lineNumber) -> lineMapper.mapLine(line, lineNumber + this.lineOffset));
+	}
+
+	@Override
+	public void open(ExecutionContext executionContext) throws ItemStreamException {
+		String positionKey = getExecutionContextKey(POSITION_KEY);
+
+		this.positioned = isSaveState() && executionContext.containsKey(positionKey);
+
+		if(this.positioned) {
+			this.openPosition = executionContext.getLong(positionKey);
+			this.openOffset = executionContext.getLong(getExecutionContextKey(OFFSET_KEY), 0);
+			this.lineOffset = executionContext.getInt(getExecutionContextKey(LINE_KEY), 0);
+			super.setLinesToSkip(0);
+		}
+		else {
+			this.openPosition = this.startPosition;
+			this.openOffset = 0;
+			this.lineOffset = 0;
+			super.setLinesToSkip(this.linesToSkip);
+		}
+
+		super.open(executionContext);
+	}
+
+	@Override
+	public void update(ExecutionContext executionContext) throws ItemStreamException {
+		super.update(executionContext);
+
+		if(isSaveState() && this.reader instanceof GzipBufferedReaderFactory.GzipBufferedReader) {
+			GzipBufferedReaderFactory.GzipBufferedReader gzipReader = (GzipBufferedReaderFactory.GzipBufferedReader) this.reader;
+
+			executionContext.putLong(getExecutionContextKey(POSITION_KEY), gzipReader.getMemberPosition());
+			executionContext.putLong(getExecutionContextKey(OFFSET_KEY), gzipReader.getMemberOffset());
+			executionContext.putInt(getExecutionContextKey(LINE_KEY), this.lineOffset + this.reader.getLineCount());
+		}
+		else if(isSaveState() && this.reader != null) {
+			executionContext.putLong(getExecutionContextKey(POSITION_KEY), this.reader.getPosition());
+			executionContext.putInt(getExecutionContextKey(LINE_KEY), this.lineOffset + this.reader.getLineCount());
+		}
+	}
+
+	@Override
+	protected void doClose() throws Exception {
+		super.doClose();
+		this.reader = null;
+	}
+
+	@Override
+	protected void jumpToItem(int itemIndex) throws Exception {
+		if(!this.positioned) {
+			super.jumpToItem(itemIndex);
+		}
+	}
+
+	private BufferedReader createReader(Resource resource, String encoding) throws IOException {
+		if(this.compressed) {
+			this.reader = new GzipBufferedReaderFactory(this.openPosition, this.openOffset, this.decompressionThreads)
+					.create(resource, encoding);
+		}
+		else {
+			this.reader = new ByteRangeBufferedReaderFactory(this.openPosition, this.endPosition).create(resource, encoding);
+		}
+
+		return this.reader;
+	}
+}
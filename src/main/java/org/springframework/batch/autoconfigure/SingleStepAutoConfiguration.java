@@ -15,25 +15,51 @@
  */
 package org.springframework.batch.autoconfigure;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.function.Function;
 
+import org.springframework.batch.core.ChunkListener;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.JobBuilderFactory;
 import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.AbstractTaskletStepBuilder;
 import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.core.step.builder.TaskletStepBuilder;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamWriter;
 import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.function.FunctionItemProcessor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.batch.BatchAutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.NoneNestedConditions;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -42,7 +68,11 @@ import org.springframework.util.StringUtils;
 @Configuration
 @EnableConfigurationProperties(SingleStepProperties.class)
 @AutoConfigureAfter(BatchAutoConfiguration.class)
-public class SingleStepAutoConfiguration {
+public class SingleStepAutoConfiguration implements DisposableBean {
+
+	private static final String WORKER_STEP_SUFFIX = "Worker";
+
+	private static final String MICROMETER_REGISTRY = "io.micrometer.core.instrument.MeterRegistry";
 
 	private JobBuilderFactory jobBuilderFactory;
 
@@ -52,6 +82,8 @@ public class SingleStepAutoConfiguration {
 
 	private ApplicationContext context;
 
+	private final List<ExecutorService> executors = new ArrayList<>();
+
 	public SingleStepAutoConfiguration(JobBuilderFactory jobBuilderFactory,
 			StepBuilderFactory stepBuilderFactory,
 			SingleStepProperties properties,
@@ -65,33 +97,381 @@ public class SingleStepAutoConfiguration {
 	@Bean
 	@ConditionalOnMissingBean
 	@ConditionalOnProperty(prefix = "spring.batch.job", name = "job-name")
-	public Job job(ItemReader<Map<Object, Object>> itemReader, ItemWriter<Map<Object, Object>> itemWriter) {
-		SimpleStepBuilder<Map<Object, Object>, Map<Object, Object>> stepBuilder = stepBuilderFactory.get(properties.getStepName())
-				.<Map<Object, Object>, Map<Object, Object>>chunk(properties.getChunkSize())
-				.reader(itemReader);
+	@Conditional(NotPartitionWorkerCondition.class)
+	public Job job(ItemReader<Map<Object, Object>> itemReader,
+			ItemWriter<Map<Object, Object>> itemWriter,
+			ObjectProvider<Partitioner> partitionerProvider) {
+		Partitioner partitioner = partitionerProvider.getIfAvailable();
+		Step step;
 
-		if(!StringUtils.isEmpty(this.properties.getItemProcessor())) {
-			Object itemProcessor = this.context.getBean(this.properties.getItemProcessor());
+		SingleStepProperties.Partitioning partitioning = this.properties.getPartitioning();
 
-			if(itemProcessor instanceof ItemProcessor) {
-				stepBuilder.processor((ItemProcessor) itemProcessor);
-			}
-			else if(itemProcessor instanceof Function) {
-				stepBuilder.processor((Function) itemProcessor);
-			}
-			else {
-				throw new IllegalArgumentException("The bean configured as an ItemProcessor must be either an " +
-						"ItemProcessor<Map<Object, Object>,Map<Object, Object>> or a " +
-						"Function<Map<Object, Object>,Map<Object, Object>>.  The bean found is a " +
-						itemProcessor.getClass().toGenericString());
-			}
+		if(partitioning.getRole() == SingleStepProperties.Partitioning.Role.MANAGER) {
+			Assert.state(partitioner != null, "spring.batch.job.partitioning.role=manager requires a partitioned step");
+
+			JobRepositoryPartitionHandler partitionHandler = new JobRepositoryPartitionHandler(
+					this.context.getBean(JobExplorer.class),
+					partitioning.getPollInterval(),
+					partitioning.getTimeout());
+			partitionHandler.setGridSize(gridSize());
+
+			step = this.stepBuilderFactory.get(this.properties.getStepName())
+					.partitioner(this.properties.getStepName() + WORKER_STEP_SUFFIX, partitioner)
+					.partitionHandler(partitionHandler)
+					.build();
 		}
+		else if(partitioner != null) {
+			assertPartitionable();
 
-		Step step = stepBuilder.writer(itemWriter)
-				.build();
+			Step workerStep = chunkStep(this.properties.getStepName() + WORKER_STEP_SUFFIX, itemReader, itemWriter);
+
+			SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor(workerStep.getName() + "-");
+			taskExecutor.setConcurrencyLimit(this.properties.getPartitionWorkers());
+
+			LargestFirstPartitionHandler partitionHandler = new LargestFirstPartitionHandler();
+			partitionHandler.setStep(workerStep);
+			partitionHandler.setTaskExecutor(taskExecutor);
+			partitionHandler.setGridSize(gridSize());
+
+			step = this.stepBuilderFactory.get(this.properties.getStepName())
+					.partitioner(workerStep.getName(), partitioner)
+					.partitionHandler(partitionHandler)
+					.build();
+		}
+		else {
+			step = chunkStep(this.properties.getStepName(), itemReader, itemWriter);
+		}
 
 		return this.jobBuilderFactory.get(properties.getJobName())
 				.start(step)
 				.build();
 	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnProperty(prefix = "spring.batch.job.partitioning", name = "role", havingValue = "worker")
+	public JobRepositoryPartitionWorker partitionWorker(ItemReader<Map<Object, Object>> itemReader,
+			ItemWriter<Map<Object, Object>> itemWriter,
+			JobExplorer jobExplorer,
+			JobRepository jobRepository) {
+		assertPartitionable();
+
+		Step workerStep = chunkStep(this.properties.getStepName() + WORKER_STEP_SUFFIX, itemReader, itemWriter);
+
+		return new JobRepositoryPartitionWorker(workerStep,
+				this.properties.getJobName(),
+				jobExplorer,
+				jobRepository,
+				this.properties.getPartitionWorkers(),
+				this.properties.getPartitioning().getPollInterval());
+	}
+
+	@Override
+	public void destroy() {
+		for (ExecutorService executor : this.executors) {
+			executor.shutdown();
+		}
+	}
+
+	private Step chunkStep(String stepName, ItemReader<Map<Object, Object>> itemReader, ItemWriter<Map<Object, Object>> itemWriter) {
+		boolean multiThreaded = isMultiThreaded();
+		// registered explicitly as the wrappers below hide it
+		StepExecutionListener writerListener = itemWriter instanceof StepExecutionListener ?
+				(StepExecutionListener) itemWriter : null;
+
+		if(isPipeline()) {
+			Assert.state(!multiThreaded, "The pipeline engine cannot be combined with spring.batch.job.concurrency");
+			Assert.state(this.properties.getPrefetchSize() == 0, "The pipeline engine reads ahead and cannot be " +
+					"combined with spring.batch.job.prefetch-size");
+			Assert.state(this.properties.getAdaptiveChunk().getTargetLatency() == null, "The pipeline engine cannot " +
+					"be combined with spring.batch.job.adaptive-chunk.target-latency");
+			Assert.state(this.properties.getAsyncProcessorThreads() == 0, "The pipeline engine processes chunks on " +
+					"spring.batch.job.pipeline.processor-threads and cannot be combined with " +
+					"spring.batch.job.async-processor-threads");
+		}
+
+		if(this.properties.getPrefetchSize() > 0) {
+			Assert.state(!multiThreaded, "spring.batch.job.prefetch-size cannot be combined with spring.batch.job.concurrency");
+
+			itemReader = new PrefetchingItemReader<>(itemReader, this.properties.getPrefetchSize());
+		}
+
+		if(multiThreaded) {
+			itemReader = new SynchronizedCheckpointingItemReader<>(itemReader);
+
+			if(itemWriter instanceof ItemStreamWriter) {
+				itemWriter = new SynchronizedItemStreamWriter<>((ItemStreamWriter<Map<Object, Object>>) itemWriter);
+			}
+		}
+
+		List<Object> processorBeans = processorBeans();
+		ItemProcessor<Map<Object, Object>, Map<Object, Object>> itemProcessor = null;
+
+		if(processorBeans.size() == 1 && processorBeans.get(0) instanceof ChunkItemProcessor) {
+			Assert.state(this.properties.getProcessorCache().getKeyFields().isEmpty(), "A ChunkItemProcessor processes " +
+					"whole chunks and cannot be combined with spring.batch.job.processor-cache.key-fields");
+			Assert.state(this.properties.getAsyncProcessorThreads() == 0, "A ChunkItemProcessor processes whole " +
+					"chunks and cannot be combined with spring.batch.job.async-processor-threads");
+
+			itemWriter = new ChunkProcessingItemWriter<>((ChunkItemProcessor<Map<Object, Object>, Map<Object, Object>>) processorBeans.get(0), itemWriter);
+		}
+		else if(processorBeans.size() == 1) {
+			itemProcessor = itemProcessor(processorBeans.get(0));
+		}
+		else if(!processorBeans.isEmpty()) {
+			itemProcessor = new FusedItemProcessor<>(processorBeans);
+		}
+
+		if(itemProcessor != null && !this.properties.getProcessorCache().getKeyFields().isEmpty()) {
+			itemProcessor = cachingItemProcessor(itemProcessor, stepName);
+		}
+
+		if(isPipeline()) {
+			return pipelineStep(stepName, itemReader, itemProcessor, itemWriter, writerListener);
+		}
+
+		AdaptiveChunkSizePolicy chunkSizePolicy = adaptiveChunkSizePolicy(stepName);
+		SimpleStepBuilder<Map<Object, Object>, ?> stepBuilder;
+
+		if(itemProcessor != null && this.properties.getAsyncProcessorThreads() > 0) {
+			stepBuilder = this.<Future<Map<Object, Object>>>chunk(stepName, chunkSizePolicy)
+					.reader(itemReader)
+					.processor(new AsyncItemProcessor<>(itemProcessor, processorTaskExecutor(stepName)))
+					.writer(new AsyncItemWriter<>(itemWriter));
+		}
+		else {
+			stepBuilder = this.<Map<Object, Object>>chunk(stepName, chunkSizePolicy)
+					.reader(itemReader)
+					.processor(itemProcessor)
+					.writer(itemWriter);
+		}
+
+		if(chunkSizePolicy != null) {
+			stepBuilder.listener((ChunkListener) chunkSizePolicy);
+		}
+
+		if(writerListener != null) {
+			stepBuilder.listener(writerListener);
+		}
+
+		if(multiThreaded) {
+			stepBuilder.taskExecutor(stepTaskExecutor(stepName))
+					.throttleLimit(this.properties.getConcurrency());
+		}
+
+		return stepBuilder.build();
+	}
+
+	private Step pipelineStep(String stepName, ItemReader<Map<Object, Object>> itemReader,
+			ItemProcessor<Map<Object, Object>, Map<Object, Object>> itemProcessor,
+			ItemWriter<Map<Object, Object>> itemWriter, StepExecutionListener writerListener) {
+		Assert.notNull(this.properties.getChunkSize(), "The pipeline engine requires spring.batch.job.chunk-size");
+
+		SingleStepProperties.Pipeline pipeline = this.properties.getPipeline();
+		int processorThreads = pipeline.getProcessorThreads();
+
+		PipelineTasklet<Map<Object, Object>, Map<Object, Object>> tasklet = new PipelineTasklet<>(itemReader,
+				itemProcessor,
+				itemWriter,
+				this.properties.getChunkSize(),
+				processorThreads,
+				pipeline.getQueueCapacity() != null ? pipeline.getQueueCapacity() : 2 * processorThreads);
+
+		AbstractTaskletStepBuilder<TaskletStepBuilder> stepBuilder = this.stepBuilderFactory.get(stepName)
+				.tasklet(tasklet)
+				.stream(tasklet);
+
+		if(itemWriter instanceof ItemStream) {
+			stepBuilder.stream((ItemStream) itemWriter);
+		}
+
+		if(writerListener != null) {
+			stepBuilder.listener(writerListener);
+		}
+
+		return stepBuilder.build();
+	}
+
+	private void assertPartitionable() {
+		Assert.state(!isMultiThreaded(), "spring.batch.job.concurrency cannot be combined with a partitioned step");
+		Assert.state(!isPipeline(), "The pipeline engine cannot be combined with a partitioned step");
+	}
+
+	private int gridSize() {
+		return this.properties.getGridSize() != null ? this.properties.getGridSize() : this.properties.getPartitionWorkers();
+	}
+
+	private boolean isPipeline() {
+		return this.properties.getEngine() == SingleStepProperties.Engine.PIPELINE;
+	}
+
+	private <O> SimpleStepBuilder<Map<Object, Object>, O> chunk(String stepName, AdaptiveChunkSizePolicy chunkSizePolicy) {
+		StepBuilder stepBuilder = this.stepBuilderFactory.get(stepName);
+
+		return chunkSizePolicy != null ? stepBuilder.chunk(chunkSizePolicy) :
+				stepBuilder.chunk(this.properties.getChunkSize());
+	}
+
+	/**
+	 * @return the adaptive completion policy, or {@code null} when no target latency is
+	 * configured
+	 */
+	private AdaptiveChunkSizePolicy adaptiveChunkSizePolicy(String stepName) {
+		SingleStepProperties.AdaptiveChunk adaptiveChunk = this.properties.getAdaptiveChunk();
+
+		if(adaptiveChunk.getTargetLatency() == null) {
+			return null;
+		}
+
+		AdaptiveChunkSizePolicy policy = new AdaptiveChunkSizePolicy(adaptiveChunk.getTargetLatency(),
+				adaptiveChunk.getMinSize(),
+				adaptiveChunk.getMaxSize(),
+				this.properties.getChunkSize() != null ? this.properties.getChunkSize() : adaptiveChunk.getMinSize());
+
+		if(ClassUtils.isPresent(MICROMETER_REGISTRY, getClass().getClassLoader())) {
+			StepMetrics.bind(policy, stepName);
+		}
+
+		return policy;
+	}
+
+	private CachingItemProcessor cachingItemProcessor(ItemProcessor<Map<Object, Object>, Map<Object, Object>> itemProcessor,
+			String stepName) {
+		SingleStepProperties.ProcessorCache processorCache = this.properties.getProcessorCache();
+
+		CachingItemProcessor cachingItemProcessor = new CachingItemProcessor(itemProcessor,
+				processorCache.getKeyFields(),
+				processorCache.getMaxSize(),
+				processorCache.getTtl());
+
+		if(ClassUtils.isPresent(MICROMETER_REGISTRY, getClass().getClassLoader())) {
+			StepMetrics.bind(cachingItemProcessor, stepName);
+		}
+
+		return cachingItemProcessor;
+	}
+
+	/**
+	 * @return the largest number of items in a chunk
+	 */
+	private int maxChunkSize() {
+		return this.properties.getAdaptiveChunk().getTargetLatency() != null ?
+				this.properties.getAdaptiveChunk().getMaxSize() : this.properties.getChunkSize();
+	}
+
+	/**
+	 * @return the beans named by the comma separated item processor property, in order
+	 */
+	private List<Object> processorBeans() {
+		List<Object> processorBeans = new ArrayList<>();
+
+		for (String name : StringUtils.commaDelimitedListToStringArray(this.properties.getItemProcessor())) {
+			if(StringUtils.hasText(name)) {
+				processorBeans.add(this.context.getBean(name.trim()));
+			}
+		}
+
+		return processorBeans;
+	}
+
+	private ItemProcessor<Map<Object, Object>, Map<Object, Object>> itemProcessor(Object itemProcessor) {
+		if(itemProcessor instanceof ItemProcessor) {
+			return (ItemProcessor) itemProcessor;
+		}
+		else if(itemProcessor instanceof Function) {
+			return new FunctionItemProcessor<>((Function) itemProcessor);
+		}
+
+		throw new IllegalArgumentException("The bean configured as an ItemProcessor must be an " +
+				"ItemProcessor<Map<Object, Object>,Map<Object, Object>>, a " +
+				"Function<Map<Object, Object>,Map<Object, Object>> or a " +
+				"ChunkItemProcessor<Map<Object, Object>,Map<Object, Object>>.  The bean found is a " +
+				itemProcessor.getClass().toGenericString());
+	}
+
+	private boolean isMultiThreaded() {
+		return this.properties.getConcurrency() != null && this.properties.getConcurrency() > 1;
+	}
+
+	private AsyncTaskExecutor stepTaskExecutor(String stepName) {
+		SingleStepProperties.Executor executorProperties = this.properties.getExecutor();
+		String threadNamePrefix = StringUtils.hasText(executorProperties.getThreadNamePrefix()) ?
+				executorProperties.getThreadNamePrefix() : stepName + "-";
+
+		if(isVirtual()) {
+			return virtualTaskExecutor(threadNamePrefix);
+		}
+
+		int concurrency = this.properties.getConcurrency();
+
+		int corePoolSize = executorProperties.getCorePoolSize() != null ? executorProperties.getCorePoolSize() : concurrency;
+
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(corePoolSize);
+		taskExecutor.setMaxPoolSize(executorProperties.getMaxPoolSize() != null ?
+				executorProperties.getMaxPoolSize() : Math.max(corePoolSize, concurrency));
+		taskExecutor.setQueueCapacity(executorProperties.getQueueCapacity());
+		taskExecutor.setKeepAliveSeconds(executorProperties.getKeepAlive());
+		taskExecutor.setThreadNamePrefix(threadNamePrefix);
+		taskExecutor.initialize();
+
+		this.executors.add(taskExecutor.getThreadPoolExecutor());
+
+		return taskExecutor;
+	}
+
+	/**
+	 * The queue of the processor pool is bounded at one chunk per chunk thread. When it
+	 * is full, items are processed on the chunk thread, which holds back the reads. On
+	 * virtual threads, the number of items in flight is bounded by the chunks instead.
+	 */
+	private AsyncTaskExecutor processorTaskExecutor(String stepName) {
+		if(isVirtual()) {
+			return virtualTaskExecutor(stepName + "-processor-");
+		}
+
+		int threads = this.properties.getAsyncProcessorThreads();
+
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(threads);
+		taskExecutor.setMaxPoolSize(threads);
+		taskExecutor.setQueueCapacity(maxChunkSize() * (isMultiThreaded() ? this.properties.getConcurrency() : 1));
+		taskExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		taskExecutor.setThreadNamePrefix(stepName + "-processor-");
+		taskExecutor.initialize();
+
+		this.executors.add(taskExecutor.getThreadPoolExecutor());
+
+		return taskExecutor;
+	}
+
+	/**
+	 * Virtual threads are used when requested and supported by the JVM. Otherwise the
+	 * bounded platform pools are used.
+	 */
+	private boolean isVirtual() {
+		return this.properties.isVirtualThreads() && VirtualThreads.isAvailable();
+	}
+
+	private AsyncTaskExecutor virtualTaskExecutor(String threadNamePrefix) {
+		ExecutorService executor = VirtualThreads.newExecutor(threadNamePrefix);
+		this.executors.add(executor);
+
+		return new TaskExecutorAdapter(executor);
+	}
+
+	/**
+	 * Matches unless the application is a partition worker, which does not run the job
+	 * itself.
+	 */
+	static class NotPartitionWorkerCondition extends NoneNestedConditions {
+
+		NotPartitionWorkerCondition() {
+			super(ConfigurationPhase.REGISTER_BEAN);
+		}
+
+		@ConditionalOnProperty(prefix = "spring.batch.job.partitioning", name = "role", havingValue = "worker")
+		static class PartitionWorker {
+		}
+	}
 }
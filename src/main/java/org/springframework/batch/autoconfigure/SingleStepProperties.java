@@ -15,6 +15,10 @@
  */
 package org.springframework.batch.autoconfigure;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -31,6 +35,30 @@ public class SingleStepProperties {
 
 	private String itemProcessor;
 
+	private int partitionWorkers = Runtime.getRuntime().availableProcessors();
+
+	private Integer gridSize;
+
+	private int prefetchSize = 0;
+
+	private Integer concurrency;
+
+	private int asyncProcessorThreads = 0;
+
+	private boolean virtualThreads = false;
+
+	private final Executor executor = new Executor();
+
+	private final AdaptiveChunk adaptiveChunk = new AdaptiveChunk();
+
+	private final ProcessorCache processorCache = new ProcessorCache();
+
+	private Engine engine = Engine.CHUNK;
+
+	private final Pipeline pipeline = new Pipeline();
+
+	private final Partitioning partitioning = new Partitioning();
+
 	public String getStepName() {
 		return stepName;
 	}
@@ -62,4 +90,312 @@ public class SingleStepProperties {
 	public void setItemProcessor(String itemProcessor) {
 		this.itemProcessor = itemProcessor;
 	}
+
+	public int getPartitionWorkers() {
+		return partitionWorkers;
+	}
+
+	public void setPartitionWorkers(int partitionWorkers) {
+		this.partitionWorkers = partitionWorkers;
+	}
+
+	public Integer getGridSize() {
+		return gridSize;
+	}
+
+	public void setGridSize(Integer gridSize) {
+		this.gridSize = gridSize;
+	}
+
+	public int getPrefetchSize() {
+		return prefetchSize;
+	}
+
+	public void setPrefetchSize(int prefetchSize) {
+		this.prefetchSize = prefetchSize;
+	}
+
+	public Integer getConcurrency() {
+		return concurrency;
+	}
+
+	public void setConcurrency(Integer concurrency) {
+		this.concurrency = concurrency;
+	}
+
+	public int getAsyncProcessorThreads() {
+		return asyncProcessorThreads;
+	}
+
+	public void setAsyncProcessorThreads(int asyncProcessorThreads) {
+		this.asyncProcessorThreads = asyncProcessorThreads;
+	}
+
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+
+	public void setVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+	}
+
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	public AdaptiveChunk getAdaptiveChunk() {
+		return adaptiveChunk;
+	}
+
+	public ProcessorCache getProcessorCache() {
+		return processorCache;
+	}
+
+	public Engine getEngine() {
+		return engine;
+	}
+
+	public void setEngine(Engine engine) {
+		this.engine = engine;
+	}
+
+	public Pipeline getPipeline() {
+		return pipeline;
+	}
+
+	public Partitioning getPartitioning() {
+		return partitioning;
+	}
+
+	/**
+	 * Thread pool that runs the chunks of a multi-threaded step. The pool sizes default
+	 * to the concurrency of the step. Only the thread name prefix applies when virtual
+	 * threads are used.
+	 */
+	public static class Executor {
+
+		private Integer corePoolSize;
+
+		private Integer maxPoolSize;
+
+		private int queueCapacity = Integer.MAX_VALUE;
+
+		private int keepAlive = 60;
+
+		private String threadNamePrefix;
+
+		public Integer getCorePoolSize() {
+			return corePoolSize;
+		}
+
+		public void setCorePoolSize(Integer corePoolSize) {
+			this.corePoolSize = corePoolSize;
+		}
+
+		public Integer getMaxPoolSize() {
+			return maxPoolSize;
+		}
+
+		public void setMaxPoolSize(Integer maxPoolSize) {
+			this.maxPoolSize = maxPoolSize;
+		}
+
+		public int getQueueCapacity() {
+			return queueCapacity;
+		}
+
+		public void setQueueCapacity(int queueCapacity) {
+			this.queueCapacity = queueCapacity;
+		}
+
+		public int getKeepAlive() {
+			return keepAlive;
+		}
+
+		public void setKeepAlive(int keepAlive) {
+			this.keepAlive = keepAlive;
+		}
+
+		public String getThreadNamePrefix() {
+			return threadNamePrefix;
+		}
+
+		public void setThreadNamePrefix(String threadNamePrefix) {
+			this.threadNamePrefix = threadNamePrefix;
+		}
+	}
+
+	/**
+	 * Sizes the chunks to complete in about the target latency instead of using a fixed
+	 * chunk size, which then only sets the size of the first chunks.
+	 */
+	public static class AdaptiveChunk {
+
+		private Duration targetLatency;
+
+		private int minSize = 1;
+
+		private int maxSize = 10000;
+
+		public Duration getTargetLatency() {
+			return targetLatency;
+		}
+
+		public void setTargetLatency(Duration targetLatency) {
+			this.targetLatency = targetLatency;
+		}
+
+		public int getMinSize() {
+			return minSize;
+		}
+
+		public void setMinSize(int minSize) {
+			this.minSize = minSize;
+		}
+
+		public int getMaxSize() {
+			return maxSize;
+		}
+
+		public void setMaxSize(int maxSize) {
+			this.maxSize = maxSize;
+		}
+	}
+
+	/**
+	 * Caches the effect of the item processor per value of the key fields, see
+	 * {@link CachingItemProcessor}. The cache is used when key fields are set.
+	 */
+	public static class ProcessorCache {
+
+		private List<String> keyFields = new ArrayList<>();
+
+		private int maxSize = 10000;
+
+		private Duration ttl;
+
+		public List<String> getKeyFields() {
+			return keyFields;
+		}
+
+		public void setKeyFields(List<String> keyFields) {
+			this.keyFields = keyFields;
+		}
+
+		public int getMaxSize() {
+			return maxSize;
+		}
+
+		public void setMaxSize(int maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		public Duration getTtl() {
+			return ttl;
+		}
+
+		public void setTtl(Duration ttl) {
+			this.ttl = ttl;
+		}
+	}
+
+	/**
+	 * How the step runs its chunks.
+	 */
+	public enum Engine {
+
+		/**
+		 * A chunk oriented step, each chunk read, processed and written in turn.
+		 */
+		CHUNK,
+
+		/**
+		 * Reading, processing and writing run as concurrent stages, see
+		 * {@link PipelineTasklet}.
+		 */
+		PIPELINE
+	}
+
+	/**
+	 * Stages of the pipeline engine. The queue capacity, in chunks, defaults to twice
+	 * the number of processor threads.
+	 */
+	public static class Pipeline {
+
+		private int processorThreads = Runtime.getRuntime().availableProcessors();
+
+		private Integer queueCapacity;
+
+		public int getProcessorThreads() {
+			return processorThreads;
+		}
+
+		public void setProcessorThreads(int processorThreads) {
+			this.processorThreads = processorThreads;
+		}
+
+		public Integer getQueueCapacity() {
+			return queueCapacity;
+		}
+
+		public void setQueueCapacity(Integer queueCapacity) {
+			this.queueCapacity = queueCapacity;
+		}
+	}
+
+	/**
+	 * Where the partitions of a partitioned step run. Managers and workers share the job
+	 * repository database and must be configured with the same job, step and reader.
+	 */
+	public static class Partitioning {
+
+		private Role role = Role.LOCAL;
+
+		private Duration pollInterval = Duration.ofSeconds(1);
+
+		private Duration timeout;
+
+		public Role getRole() {
+			return role;
+		}
+
+		public void setRole(Role role) {
+			this.role = role;
+		}
+
+		public Duration getPollInterval() {
+			return pollInterval;
+		}
+
+		public void setPollInterval(Duration pollInterval) {
+			this.pollInterval = pollInterval;
+		}
+
+		public Duration getTimeout() {
+			return timeout;
+		}
+
+		public void setTimeout(Duration timeout) {
+			this.timeout = timeout;
+		}
+
+		public enum Role {
+
+			/**
+			 * The partitions run on threads of this application.
+			 */
+			LOCAL,
+
+			/**
+			 * This application runs the job and waits for workers to run the partitions.
+			 */
+			MANAGER,
+
+			/**
+			 * This application runs partitions of the jobs started by managers, on
+			 * {@code partition-workers} threads.
+			 */
+			WORKER
+		}
+	}
 }
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ItemWriter} that loads the items into a staging table and applies them to the
+ * target tables with one set-based statement, such as a {@code MERGE} or an
+ * {@code INSERT ... SELECT}, instead of a statement per item. The staging table is
+ * emptied once applied.
+ *
+ * <ul>
+ * <li>Applied per chunk, the items are loaded, applied and deleted in the chunk
+ * transaction. The staging table can then be a temporary table whose rows are private
+ * to the transaction or the session.</li>
+ * <li>Applied per step, the staging table is loaded by each chunk and applied once the
+ * step completed, in a transaction of its own. If that fails, the step fails and a
+ * restart applies the rows staged by the committed chunks. A step that starts over
+ * empties the staging table first, dropping rows left by an abandoned execution.</li>
+ * </ul>
+ *
+ * The staging table is shared by the writers that use it, so the partitions of a
+ * partitioned step need a staging table private to each transaction, applied per
+ * chunk: applied per step, each partition would empty the rows staged by the others.
+ *
+ * To apply per step, the writer must be registered as a stream and a listener of the
+ * step.
+ *
+ * @author Michael Minella
+ */
+public class StagingTableItemWriter implements ItemStreamWriter<Map<Object, Object>>, StepExecutionListener {
+
+	private final ItemWriter<Map<Object, Object>> loader;
+
+	private final String stagingTable;
+
+	private final String applySql;
+
+	private final boolean applyPerChunk;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final String stagedKey;
+
+	/**
+	 * @param loader the writer inserting the items into the staging table
+	 * @param dataSource the data source of the staging and target tables
+	 * @param stagingTable the name of the staging table
+	 * @param applySql the statement applying the staging table to the target tables
+	 * @param applyPerChunk true to apply each chunk, false to apply once the step completed
+	 */
+	public StagingTableItemWriter(ItemWriter<Map<Object, Object>> loader, DataSource dataSource, String stagingTable,
+			String applySql, boolean applyPerChunk) {
+		Assert.notNull(loader, "A loader is required");
+		Assert.notNull(dataSource, "A data source is required");
+		Assert.hasText(stagingTable, "A staging table is required");
+		Assert.hasText(applySql, "A statement applying the staging table is required");
+
+		this.loader = loader;
+		this.stagingTable = stagingTable;
+		this.applySql = applySql;
+		this.applyPerChunk = applyPerChunk;
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		this.stagedKey = stagingTable + ".staged";
+	}
+
+	@Override
+	public void write(List<? extends Map<Object, Object>> items) throws Exception {
+		this.loader.write(items);
+
+		if(this.applyPerChunk) {
+			apply();
+		}
+	}
+
+	@Override
+	public void open(ExecutionContext executionContext) throws ItemStreamException {
+		if(!this.applyPerChunk && !executionContext.containsKey(this.stagedKey)) {
+			this.transactionTemplate.execute((status) -> this.jdbcTemplate.update("DELETE FROM " + this.stagingTable));
+		}
+	}
+
+	@Override
+	public void update(ExecutionContext executionContext) throws ItemStreamException {
+		if(!this.applyPerChunk) {
+			executionContext.putString(this.stagedKey, "true");
+		}
+	}
+
+	@Override
+	public void close() throws ItemStreamException {
+	}
+
+	@Override
+	public void beforeStep(StepExecution stepExecution) {
+	}
+
+	@Override
+	public ExitStatus afterStep(StepExecution stepExecution) {
+		if(this.applyPerChunk || stepExecution.getStatus() != BatchStatus.COMPLETED) {
+			return null;
+		}
+
+		try {
+			this.transactionTemplate.execute((status) -> apply());
+
+			return null;
+		}
+		catch (RuntimeException e) {
+			stepExecution.setStatus(BatchStatus.FAILED);
+			stepExecution.addFailureException(e);
+
+			return ExitStatus.FAILED.addExitDescription(e);
+		}
+	}
+
+	/**
+	 * @return the number of rows applied
+	 */
+	private int apply() {
+		int applied = this.jdbcTemplate.update(this.applySql);
+		this.jdbcTemplate.update("DELETE FROM " + this.stagingTable);
+
+		return applied;
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Publishes the statistics of the adaptive chunk size and of the processor cache to the
+ * global Micrometer registry, tagged with the name of the step. Micrometer is an
+ * optional dependency, so this class must only be loaded when it is on the classpath.
+ *
+ * @author Michael Minella
+ */
+final class StepMetrics {
+
+	static final String SIZE = "spring.batch.chunk.size";
+
+	static final String ITEM_TIME = "spring.batch.chunk.item.time";
+
+	static final String CHUNKS = "spring.batch.chunk.adaptive.chunks";
+
+	static final String ITEMS = "spring.batch.chunk.adaptive.items";
+
+	static final String CACHE_GETS = "spring.batch.item.processor.cache.gets";
+
+	static final String CACHE_EVICTIONS = "spring.batch.item.processor.cache.evictions";
+
+	static final String CACHE_SIZE = "spring.batch.item.processor.cache.size";
+
+	private StepMetrics() {
+	}
+
+	static void bind(AdaptiveChunkSizePolicy policy, String stepName) {
+		MeterRegistry registry = Metrics.globalRegistry;
+
+		Gauge.builder(SIZE, policy, AdaptiveChunkSizePolicy::getSize)
+				.description("Size of the next chunks chosen by the adaptive completion policy")
+				.tag("name", stepName)
+				.register(registry);
+		Gauge.builder(ITEM_TIME, policy, (p) -> Math.max(p.getNanosPerItem(), 0) / 1_000_000)
+				.description("Moving average of the time per item of a chunk")
+				.baseUnit("milliseconds")
+				.tag("name", stepName)
+				.register(registry);
+		FunctionCounter.builder(CHUNKS, policy, AdaptiveChunkSizePolicy::getChunks)
+				.description("Chunks timed by the adaptive completion policy")
+				.tag("name", stepName)
+				.register(registry);
+		FunctionCounter.builder(ITEMS, policy, AdaptiveChunkSizePolicy::getItems)
+				.description("Items in the chunks timed by the adaptive completion policy")
+				.tag("name", stepName)
+				.register(registry);
+	}
+
+	static void bind(CachingItemProcessor processor, String stepName) {
+		MeterRegistry registry = Metrics.globalRegistry;
+
+		FunctionCounter.builder(CACHE_GETS, processor, CachingItemProcessor::getHits)
+				.description("Items processed from the cache")
+				.tags("name", stepName, "result", "hit")
+				.register(registry);
+		FunctionCounter.builder(CACHE_GETS, processor, CachingItemProcessor::getMisses)
+				.description("Items processed by the cached processor")
+				.tags("name", stepName, "result", "miss")
+				.register(registry);
+		FunctionCounter.builder(CACHE_EVICTIONS, processor, CachingItemProcessor::getEvictions)
+				.description("Keys evicted from the processor cache")
+				.tag("name", stepName)
+				.register(registry);
+		Gauge.builder(CACHE_SIZE, processor, CachingItemProcessor::getSize)
+				.description("Keys in the processor cache")
+				.tag("name", stepName)
+				.register(registry);
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ItemStreamReader} that makes a single threaded reader safe to use from the
+ * chunk threads of a multi-threaded step, and keeps its restart state consistent.
+ *
+ * Reads are serialized. Before the first item of each chunk, the state of the delegate
+ * is captured. When a chunk commits, {@link #update(ExecutionContext)} is called on
+ * the thread that processed it. The state then saved is the one captured before the
+ * oldest chunk that is still in flight on another thread, or the current state of the
+ * delegate if there is none. A restart may therefore read again items of chunks that
+ * committed while an earlier chunk was still in flight, but it never skips an item
+ * that was not committed.
+ *
+ * @author Michael Minella
+ */
+public class SynchronizedCheckpointingItemReader<T> implements ItemStreamReader<T> {
+
+	private final ItemReader<T> delegate;
+
+	private final Object lock = new Object();
+
+	/**
+	 * The chunk currently read by each thread: the sequence number of its first item
+	 * and the state of the delegate before it.
+	 */
+	private final Map<Thread, Checkpoint> inFlight = new HashMap<>();
+
+	private long sequence;
+
+	public SynchronizedCheckpointingItemReader(ItemReader<T> delegate) {
+		Assert.notNull(delegate, "A delegate is required");
+
+		this.delegate = delegate;
+	}
+
+	@Override
+	public T read() throws Exception {
+		synchronized (this.lock) {
+			Thread thread = Thread.currentThread();
+			Checkpoint checkpoint = null;
+
+			if(!this.inFlight.containsKey(thread)) {
+				checkpoint = new Checkpoint(this.sequence);
+
+				if(this.delegate instanceof ItemStream) {
+					((ItemStream) this.delegate).update(checkpoint.state);
+				}
+			}
+
+			T item = this.delegate.read();
+
+			if(item != null) {
+				this.sequence++;
+
+				if(checkpoint != null) {
+					this.inFlight.put(thread, checkpoint);
+				}
+			}
+
+			return item;
+		}
+	}
+
+	@Override
+	public void open(ExecutionContext executionContext) throws ItemStreamException {
+		synchronized (this.lock) {
+			this.inFlight.clear();
+			this.sequence = 0;
+
+			if(this.delegate instanceof ItemStream) {
+				((ItemStream) this.delegate).open(executionContext);
+			}
+		}
+	}
+
+	@Override
+	public void update(ExecutionContext executionContext) throws ItemStreamException {
+		synchronized (this.lock) {
+			this.inFlight.remove(Thread.currentThread());
+
+			Checkpoint oldest = null;
+
+			for (Checkpoint checkpoint : this.inFlight.values()) {
+				if(oldest == null || checkpoint.sequence < oldest.sequence) {
+					oldest = checkpoint;
+				}
+			}
+
+			if(oldest != null) {
+				for (Map.Entry<String, Object> entry : oldest.state.entrySet()) {
+					executionContext.put(entry.getKey(), entry.getValue());
+				}
+			}
+			else if(this.delegate instanceof ItemStream) {
+				((ItemStream) this.delegate).update(executionContext);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws ItemStreamException {
+		synchronized (this.lock) {
+			this.inFlight.clear();
+
+			if(this.delegate instanceof ItemStream) {
+				((ItemStream) this.delegate).close();
+			}
+		}
+	}
+
+	private static class Checkpoint {
+
+		private final long sequence;
+
+		private final ExecutionContext state = new ExecutionContext();
+
+		Checkpoint(long sequence) {
+			this.sequence = sequence;
+		}
+	}
+}
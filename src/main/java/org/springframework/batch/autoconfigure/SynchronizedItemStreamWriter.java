@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.util.List;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ItemStreamWriter} that serializes the calls to a stateful writer, such as a
+ * {@link org.springframework.batch.item.file.FlatFileItemWriter}, written to from the
+ * chunk threads of a multi-threaded step.
+ *
+ * @author Michael Minella
+ */
+public class SynchronizedItemStreamWriter<T> implements ItemStreamWriter<T> {
+
+	private final ItemStreamWriter<T> delegate;
+
+	public SynchronizedItemStreamWriter(ItemStreamWriter<T> delegate) {
+		Assert.notNull(delegate, "A delegate is required");
+
+		this.delegate = delegate;
+	}
+
+	@Override
+	public synchronized void write(List<? extends T> items) throws Exception {
+		this.delegate.write(items);
+	}
+
+	@Override
+	public synchronized void open(ExecutionContext executionContext) throws ItemStreamException {
+		this.delegate.open(executionContext);
+	}
+
+	@Override
+	public synchronized void update(ExecutionContext executionContext) throws ItemStreamException {
+		this.delegate.update(executionContext);
+	}
+
+	@Override
+	public synchronized void close() throws ItemStreamException {
+		this.delegate.close();
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.batch.autoconfigure;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates executors that start a virtual thread per task when the JVM supports them
+ * (Java 21 and later). The starter is compiled for Java 8, so the virtual thread API is
+ * looked up reflectively.
+ *
+ * @author Michael Minella
+ */
+public final class VirtualThreads {
+
+	private static final Method OF_VIRTUAL;
+
+	private static final Method NAME;
+
+	private static final Method FACTORY;
+
+	private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+	static {
+		Method ofVirtual = null;
+		Method name = null;
+		Method factory = null;
+		Method newThreadPerTaskExecutor = null;
+
+		try {
+			Class<?> builder = Class.forName("java.lang.Thread$Builder");
+
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			name = builder.getMethod("name", String.class, long.class);
+			factory = builder.getMethod("factory");
+			newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+
+			// a preview API before Java 21, which fails unless preview features are enabled
+			ofVirtual.invoke(null);
+		}
+		catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+			ofVirtual = null;
+		}
+
+		OF_VIRTUAL = ofVirtual;
+		NAME = name;
+		FACTORY = factory;
+		NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+	}
+
+	private VirtualThreads() {
+	}
+
+	/**
+	 * @return true if the JVM supports virtual threads, and they can be used without
+	 * enabling preview features
+	 */
+	public static boolean isAvailable() {
+		return OF_VIRTUAL != null;
+	}
+
+	/**
+	 * @param namePrefix the prefix of the names of the threads, followed by a counter
+	 * @return an executor that runs each task on a new virtual thread, or {@code null}
+	 * if the JVM does not support virtual threads
+	 */
+	public static ExecutorService newExecutor(String namePrefix) {
+		if(!isAvailable()) {
+			return null;
+		}
+
+		try {
+			Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix, 0L);
+			ThreadFactory threadFactory = (ThreadFactory) FACTORY.invoke(builder);
+
+			return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+		}
+		catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Unable to create a virtual thread executor", e);
+		}
+	}
+}
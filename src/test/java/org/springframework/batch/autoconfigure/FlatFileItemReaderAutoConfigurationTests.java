@@ -15,24 +15,59 @@
  */
 package org.springframework.batch.autoconfigure;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.batch.item.file.transform.IncorrectTokenCountException;
+import org.springframework.batch.item.file.transform.Range;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.autoconfigure.batch.BatchAutoConfiguration;
 import org.springframework.boot.autoconfigure.jdbc.EmbeddedDataSourceConfiguration;
 import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * @author Michael Minella
  */
 public class FlatFileItemReaderAutoConfigurationTests {
 
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
 			.withConfiguration(AutoConfigurations.of(BatchAutoConfiguration.class,
 					TransactionAutoConfiguration.class,
@@ -65,8 +100,532 @@ public class FlatFileItemReaderAutoConfigurationTests {
 				});
 	}
 
+	@Test
+	public void testReaderTypeDependsOnWrapping() {
+		this.contextRunner
+				.withUserConfiguration(TestConfiguration.class,
+						ReaderConsumerConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true")
+				.run((context) -> assertThat(context).hasNotFailed()
+						.getBean("consumer").isSameAs(context.getBean("itemReader")));
+
+		this.contextRunner
+				.withUserConfiguration(TestConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true",
+						"spring.batch.job.filereader.filters[0].field=foo",
+						"spring.batch.job.filereader.filters[0].prefix=1")
+				.run((context) -> {
+					assertThat(context).hasSingleBean(ItemStreamReader.class);
+					assertThat(context).doesNotHaveBean(FlatFileItemReader.class);
+					assertThat(context.getBean("itemReader")).isInstanceOf(FilteringItemReader.class);
+				});
+	}
+
+	@Test
+	public void testPartitionedContext() {
+		this.contextRunner
+				.withUserConfiguration(TestConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true",
+						"spring.batch.job.filereader.partitions=4")
+				.run((context) -> {
+					assertThat(context).hasBean("partitionedItemReader");
+					assertThat(context).hasBean("filePartitioner");
+					assertThat(context).doesNotHaveBean("itemReader");
+				});
+	}
+
+	@Test
+	public void testPartitioningOptionsAreExclusive() {
+		ApplicationContextRunner partitionedContextRunner = this.contextRunner
+				.withUserConfiguration(TestConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true",
+						"spring.batch.job.filereader.key-field=foo",
+						"spring.batch.job.filereader.partitions=4");
+
+		partitionedContextRunner.withPropertyValues("spring.batch.job.filereader.key-ranges=..99999,100000..")
+				.run((context) -> assertThat(context).getFailure()
+						.hasStackTraceContaining("Only one of spring.batch.job.filereader.resources"));
+		partitionedContextRunner.withPropertyValues("spring.batch.job.filereader.resources=classpath:/data/*.csv")
+				.run((context) -> assertThat(context).getFailure()
+						.hasStackTraceContaining("Only one of spring.batch.job.filereader.resources"));
+	}
+
+	@Test
+	public void testPartitionsAreAlignedToLines() throws Exception {
+		Resource resource = new ClassPathResource("/data/summaryFile.csv");
+		byte[] bytes = Files.readAllBytes(resource.getFile().toPath());
+
+		Map<String, ExecutionContext> partitions = new FlatFilePartitioner(resource, 4, 1).partition(1);
+
+		assertThat(partitions).hasSize(4);
+
+		long expectedStart = new String(bytes).indexOf('\n') + 1;
+		int lines = 0;
+
+		for (ExecutionContext partition : partitions.values()) {
+			long start = partition.getLong(FlatFilePartitioner.START_POSITION_KEY);
+			long end = partition.getLong(FlatFilePartitioner.END_POSITION_KEY);
+
+			assertThat(start).isEqualTo(expectedStart);
+			assertThat(bytes[(int) end - 1]).isEqualTo((byte) '\n');
+
+			BufferedReader reader = new ByteRangeBufferedReaderFactory(start, end).create(resource, "UTF-8");
+
+			while (reader.readLine() != null) {
+				lines++;
+			}
+
+			reader.close();
+			expectedStart = end;
+		}
+
+		assertThat(expectedStart).isEqualTo(bytes.length);
+		assertThat(lines).isEqualTo(98);
+	}
+
+	@Test
+	public void testIndexedRecords() {
+		this.contextRunner
+				.withUserConfiguration(TestConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true",
+						"spring.batch.job.filereader.indexed-records=true")
+				.run((context) -> {
+					FlatFileItemReader<Map<Object, Object>> reader = context.getBean(FlatFileItemReader.class);
+					reader.open(new ExecutionContext());
+
+					Map<Object, Object> first = reader.read();
+					Map<Object, Object> second = reader.read();
+					reader.close();
+
+					assertThat(first).isInstanceOf(IndexedRecord.class);
+					assertThat(((IndexedRecord) first).getSchema()).isSameAs(((IndexedRecord) second).getSchema());
+					assertThat(first).containsEntry("foo", "108554").containsEntry("bar", "-4149.14").hasSize(2);
+
+					first.put("baz", "qux");
+					first.remove("foo");
+
+					Properties expected = new Properties();
+					expected.put("bar", "-4149.14");
+					expected.put("baz", "qux");
+
+					assertThat(first).containsOnlyKeys("bar", "baz");
+					assertThat(first).isEqualTo(expected);
+				});
+	}
+
+	@Test
+	public void testSeekOnRestart() {
+		this.contextRunner
+				.withUserConfiguration(TestConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true",
+						"spring.batch.job.filereader.lines-to-skip=1",
+						"spring.batch.job.filereader.seek-on-restart=true")
+				.run((context) -> {
+					FlatFileItemReader<Map<Object, Object>> reader = context.getBean(FlatFileItemReader.class);
+					assertThat(reader).isInstanceOf(SeekableFlatFileItemReader.class);
+
+					ExecutionContext executionContext = new ExecutionContext();
+					reader.open(executionContext);
+					reader.read();
+					reader.read();
+					reader.update(executionContext);
+					reader.close();
+
+					assertThat(executionContext.getLong("fooReader.position")).isEqualTo(47);
+					assertThat(executionContext.getInt("fooReader.line")).isEqualTo(3);
+					assertThat(executionContext.getInt("fooReader.read.count")).isEqualTo(2);
+
+					reader.open(executionContext);
+					Map<Object, Object> item = reader.read();
+					reader.update(executionContext);
+					reader.close();
+
+					assertThat(item).containsEntry("foo", "170502");
+					assertThat(executionContext.getInt("fooReader.read.count")).isEqualTo(3);
+					assertThat(executionContext.getInt("fooReader.line")).isEqualTo(4);
+
+					reader.open(new ExecutionContext());
+					assertThat(reader.read()).containsEntry("foo", "12065");
+					reader.close();
+				});
+	}
+
+	@Test
+	public void testMemoryMappedFixedLengthReader() {
+		this.contextRunner
+				.withUserConfiguration(TestConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.filereader.resource=/data/fixedLengthFile.txt",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=id,amount",
+						"spring.batch.job.filereader.ranges=1-6,7-14",
+						"spring.batch.job.filereader.lines-to-skip=1",
+						"spring.batch.job.filereader.memory-mapped=true")
+				.run((context) -> {
+					ItemStreamReader<Map<Object, Object>> reader = context.getBean(ItemStreamReader.class);
+					assertThat(reader).isInstanceOf(MappedFixedLengthItemReader.class);
+
+					ExecutionContext executionContext = new ExecutionContext();
+					reader.open(executionContext);
+					assertThat(reader.read()).containsEntry("id", "1000").containsEntry("amount", "0.00");
+					reader.read();
+					reader.update(executionContext);
+					reader.close();
+
+					reader.open(executionContext);
+					assertThat(reader.read()).containsEntry("id", "1074").containsEntry("amount", "7.00");
+
+					int count = 3;
+					while (reader.read() != null) {
+						count++;
+					}
+					reader.close();
+
+					assertThat(count).isEqualTo(12);
+				});
+	}
+
+	@Test
+	public void testMemoryMappedReaderSkipsHeadersOfAnyLength() throws Exception {
+		File file = this.temporaryFolder.newFile("headers.txt");
+		Files.write(file.toPath(), "id amount\nexported on 2019-06-30 at 10:00\n1000      0.00  x\n1037      3.50  y\n".getBytes("UTF-8"));
+
+		this.contextRunner
+				.withUserConfiguration(TestConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.filereader.resource=file:" + file.getAbsolutePath(),
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=id,amount",
+						"spring.batch.job.filereader.ranges=1-6,7-14",
+						"spring.batch.job.filereader.lines-to-skip=2",
+						"spring.batch.job.filereader.parsing-strict=false",
+						"spring.batch.job.filereader.memory-mapped=true")
+				.run((context) -> {
+					ItemStreamReader<Map<Object, Object>> reader = context.getBean(ItemStreamReader.class);
+
+					reader.open(new ExecutionContext());
+					assertThat(reader.read()).containsEntry("id", "1000").containsEntry("amount", "0.00");
+					assertThat(reader.read()).containsEntry("id", "1037").containsEntry("amount", "3.50");
+					assertThat(reader.read()).isNull();
+					reader.close();
+				});
+
+		FlatFilePartitioner partitioner = new FlatFilePartitioner(new FileSystemResource(file), 2, 2);
+		partitioner.setRecordLength(18);
+
+		assertThat(partitioner.partition(1).values()).extracting((partition) ->
+				partition.getLong(FlatFilePartitioner.START_POSITION_KEY)).containsExactly(42L, 60L);
+	}
+
+	@Test
+	public void testFixedLengthPartitionsAreAlignedToRecords() throws Exception {
+		Resource resource = new ClassPathResource("/data/fixedLengthFile.txt");
+		FlatFilePartitioner partitioner = new FlatFilePartitioner(resource, 5, 1);
+		partitioner.setRecordLength(15);
+
+		int records = 0;
+		long expectedStart = 15;
+
+		for (ExecutionContext partition : partitioner.partition(1).values()) {
+			long start = partition.getLong(FlatFilePartitioner.START_POSITION_KEY);
+			long end = partition.getLong(FlatFilePartitioner.END_POSITION_KEY);
+
+			assertThat(start).isEqualTo(expectedStart);
+			assertThat(start % 15).isEqualTo(0);
+
+			MappedFixedLengthItemReader reader = new MappedFixedLengthItemReader(start, end);
+			reader.setName("reader");
+			reader.setResource(resource);
+			reader.setNames("id", "amount");
+			reader.setRanges(new Range(1, 6), new Range(7, 14));
+			reader.afterPropertiesSet();
+			reader.open(new ExecutionContext());
+
+			while (reader.read() != null) {
+				records++;
+			}
+
+			reader.close();
+			expectedStart = end;
+		}
+
+		assertThat(expectedStart).isEqualTo(resource.contentLength());
+		assertThat(records).isEqualTo(12);
+	}
+
+	@Test
+	public void testCompressedResource() throws Exception {
+		Resource source = new ClassPathResource("/data/summaryFile.csv");
+		File compressed = this.temporaryFolder.newFile("summaryFile.csv.gz");
+
+		try (OutputStream outputStream = new GZIPOutputStream(new FileOutputStream(compressed))) {
+			Files.copy(source.getFile().toPath(), outputStream);
+		}
+
+		this.contextRunner
+				.withUserConfiguration(TestConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.filereader.resource=file:" + compressed.getAbsolutePath(),
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true",
+						"spring.batch.job.filereader.lines-to-skip=1")
+				.run((context) -> {
+					FlatFileItemReader<Map<Object, Object>> reader = context.getBean(FlatFileItemReader.class);
+
+					ExecutionContext executionContext = new ExecutionContext();
+					reader.open(executionContext);
+					reader.read();
+					reader.read();
+					reader.update(executionContext);
+					reader.close();
+
+					assertThat(executionContext.getLong("fooReader.position")).isEqualTo(0);
+					assertThat(executionContext.getLong("fooReader.offset")).isEqualTo(47);
+
+					reader.open(executionContext);
+					assertThat(reader.read()).containsEntry("foo", "170502");
+
+					int count = 3;
+					while (reader.read() != null) {
+						count++;
+					}
+					reader.close();
+
+					assertThat(count).isEqualTo(98);
+				});
+	}
+
+	@Test
+	public void testBlockCompressedResource() throws Exception {
+		Resource source = new ClassPathResource("/data/summaryFile.csv");
+		byte[] bytes = Files.readAllBytes(source.getFile().toPath());
+		File compressed = this.temporaryFolder.newFile("summaryFile.csv.bgz");
+
+		try (OutputStream outputStream = new FileOutputStream(compressed)) {
+			for (int i = 0; i < bytes.length; i += 100) {
+				writeBlock(outputStream, bytes, i, Math.min(100, bytes.length - i));
+			}
+			writeBlock(outputStream, bytes, 0, 0);
+		}
+
+		Resource resource = new FileSystemResource(compressed);
+		List<String> expected = Files.readAllLines(source.getFile().toPath());
+		List<String> lines = new ArrayList<>();
+
+		GzipBufferedReaderFactory.GzipBufferedReader reader = new GzipBufferedReaderFactory(0, 0, 3).create(resource, "UTF-8");
+
+		for (int i = 0; i < 50; i++) {
+			lines.add(reader.readLine());
+		}
+
+		long memberPosition = reader.getMemberPosition();
+		long memberOffset = reader.getMemberOffset();
+		reader.close();
+
+		assertThat(memberPosition).isGreaterThan(0);
+
+		reader = new GzipBufferedReaderFactory(memberPosition, memberOffset, 3).create(resource, "UTF-8");
+
+		String line;
+		while ((line = reader.readLine()) != null) {
+			lines.add(line);
+		}
+		reader.close();
+
+		assertThat(lines).isEqualTo(expected);
+	}
+
+	/**
+	 * Writes a block compressed (BGZF) gzip member.
+	 */
+	private static void writeBlock(OutputStream outputStream, byte[] bytes, int offset, int length) throws IOException {
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		deflater.setInput(bytes, offset, length);
+		deflater.finish();
+
+		byte[] deflated = new byte[length + 64];
+		int deflatedLength = deflater.deflate(deflated);
+		deflater.end();
+
+		CRC32 crc = new CRC32();
+		crc.update(bytes, offset, length);
+
+		ByteBuffer member = ByteBuffer.allocate(26 + deflatedLength).order(ByteOrder.LITTLE_ENDIAN);
+		member.put(new byte[] {0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff});
+		member.putShort((short) 6).put((byte) 'B').put((byte) 'C').putShort((short) 2);
+		member.putShort((short) (member.capacity() - 1));
+		member.put(deflated, 0, deflatedLength);
+		member.putInt((int) crc.getValue()).putInt(length);
+
+		outputStream.write(member.array());
+	}
+
+	@Test
+	public void testTypedColumns() {
+		this.contextRunner
+				.withUserConfiguration(TestConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true",
+						"spring.batch.job.filereader.types[foo]=long",
+						"spring.batch.job.filereader.types[bar]=decimal")
+				.run((context) -> {
+					FlatFileItemReader<Map<Object, Object>> reader = context.getBean(FlatFileItemReader.class);
+					reader.open(new ExecutionContext());
+
+					assertThat(reader.read()).containsEntry("foo", 108554L)
+							.containsEntry("bar", new BigDecimal("-4149.14"));
+					reader.close();
+				});
+
+		char[] chars = "-9223372036854775808 9223372036854775808 +12".toCharArray();
+
+		assertThat(ColumnType.LONG.parse(chars, 0, 20)).isEqualTo(Long.MIN_VALUE);
+		assertThatThrownBy(() -> ColumnType.LONG.parse(chars, 21, 40)).isInstanceOf(NumberFormatException.class);
+		assertThat(ColumnType.INTEGER.parse(chars, 41, 44)).isEqualTo(12);
+		assertThat(ColumnType.INTEGER.parse(chars, 20, 20)).isNull();
+	}
+
+	@Test
+	public void testFilters() throws Exception {
+		List<String> lines = Files.readAllLines(new ClassPathResource("/data/summaryFile.csv").getFile().toPath());
+		List<Integer> matches = new ArrayList<>();
+
+		for (int i = 0; i < lines.size(); i++) {
+			String[] fields = lines.get(i).split(",");
+
+			if(fields[0].startsWith("1") && new BigDecimal(fields[1]).compareTo(new BigDecimal("-5000")) <= 0) {
+				matches.add(i);
+			}
+		}
+
+		this.contextRunner
+				.withUserConfiguration(TestConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true",
+						"spring.batch.job.filereader.filters[0].field=foo",
+						"spring.batch.job.filereader.filters[0].prefix=1",
+						"spring.batch.job.filereader.filters[1].field=bar",
+						"spring.batch.job.filereader.filters[1].max=-5000")
+				.run((context) -> {
+					ItemStreamReader<Map<Object, Object>> reader = context.getBean(ItemStreamReader.class);
+					ExecutionContext executionContext = new ExecutionContext();
+					reader.open(executionContext);
+
+					Map<Object, Object> item = reader.read();
+					reader.update(executionContext);
+
+					assertThat(executionContext.getInt("fooReader.read.count")).isEqualTo(matches.get(0) + 1);
+
+					int count = 0;
+
+					while (item != null) {
+						assertThat((String) item.get("foo")).startsWith("1");
+						assertThat(new BigDecimal((String) item.get("bar"))).isLessThanOrEqualTo(new BigDecimal("-5000"));
+						count++;
+						item = reader.read();
+					}
+
+					reader.close();
+
+					assertThat(count).isEqualTo(matches.size()).isGreaterThan(1);
+				});
+
+		this.contextRunner
+				.withUserConfiguration(TestConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.filereader.resource=/data/fixedLengthFile.txt",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=id,amount",
+						"spring.batch.job.filereader.ranges=1-6,7-14",
+						"spring.batch.job.filereader.lines-to-skip=1",
+						"spring.batch.job.filereader.filters[0].field=amount",
+						"spring.batch.job.filereader.filters[0].min=10",
+						"spring.batch.job.filereader.filters[0].max=20")
+				.run((context) -> {
+					ItemStreamReader<Map<Object, Object>> reader = context.getBean(ItemStreamReader.class);
+					reader.open(new ExecutionContext());
+
+					assertThat(reader.read()).containsEntry("id", "1111").containsEntry("amount", "10.50");
+					assertThat(reader.read()).containsEntry("amount", "14.00");
+					assertThat(reader.read()).containsEntry("amount", "17.50");
+					assertThat(reader.read()).isNull();
+					reader.close();
+				});
+	}
+
+	@Test
+	public void testFastDelimitedLineMapperMatchesDelimitedLineTokenizer() {
+		String[] lines = {"a,b,c", " a , b ,c ", "\"a,1\",b,c", "\" a \"\"q\"\" \",b,\"\"", "a,,", ",b,c"};
+
+		assertSameMapping(lines, new String[] {"one", "two", "three"}, Collections.emptyList());
+		assertSameMapping(lines, new String[] {"three", "one"}, Arrays.asList(2, 0));
+
+		FastDelimitedLineMapper mapper = new FastDelimitedLineMapper(',', '"',
+				new String[] {"one", "two"}, Collections.emptyList(), false);
+
+		assertThatThrownBy(() -> mapper.mapLine("a,b,c", 1)).isInstanceOf(IncorrectTokenCountException.class);
+	}
+
+	private void assertSameMapping(String[] lines, String[] names, List<Integer> includedFields) {
+		DelimitedLineTokenizer tokenizer = new DelimitedLineTokenizer();
+		tokenizer.setNames(names);
+		if(!includedFields.isEmpty()) {
+			tokenizer.setIncludedFields(includedFields.stream().mapToInt(Integer::intValue).toArray());
+		}
+
+		FastDelimitedLineMapper mapper = new FastDelimitedLineMapper(',', '"', names, includedFields, false);
+		FastDelimitedLineMapper indexedMapper = new FastDelimitedLineMapper(',', '"', names, includedFields, true);
+
+		for (String line : lines) {
+			Properties expected = tokenizer.tokenize(line).getProperties();
+
+			assertThat(mapper.mapLine(line, 1)).as(line).isEqualTo(expected);
+			assertThat(indexedMapper.mapLine(line, 1)).as(line).isEqualTo(expected);
+		}
+	}
+
 	@EnableBatchProcessing
 	protected static class TestConfiguration {
 	}
 
+	@Configuration
+	protected static class ReaderConsumerConfiguration {
+
+		@Bean
+		public Object consumer(FlatFileItemReader<Map<Object, Object>> itemReader) {
+			return itemReader;
+		}
+	}
+
 }
@@ -15,9 +15,19 @@
  */
 package org.springframework.batch.autoconfigure;
 
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.batch.core.launch.JobLauncher;
 import org.springframework.batch.item.file.FlatFileItemWriter;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.autoconfigure.batch.BatchAutoConfiguration;
@@ -33,6 +43,9 @@ import static org.assertj.core.api.Assertions.assertThat;
  */
 public class FlatFileItemWriterAutoConfigurationTests {
 
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
 			.withConfiguration(AutoConfigurations.of(BatchAutoConfiguration.class,
 					TransactionAutoConfiguration.class,
@@ -65,6 +78,50 @@ public class FlatFileItemWriterAutoConfigurationTests {
 				});
 	}
 
+	@Test
+	public void testPartitionedContext() {
+		File output = new File(this.temporaryFolder.getRoot(), "out.csv");
+
+		this.contextRunner
+				.withConfiguration(AutoConfigurations.of(FlatFileItemReaderAutoConfiguration.class,
+						SingleStepAutoConfiguration.class))
+				.withUserConfiguration(TestConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.job-name=job1",
+						"spring.batch.job.step-name=step1",
+						"spring.batch.job.chunk-size=5",
+						"spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true",
+						"spring.batch.job.filereader.partitions=3",
+						"spring.batch.job.filewriter.name=fooWriter",
+						"spring.batch.job.filewriter.resource=file:" + output.getAbsolutePath(),
+						"spring.batch.job.filewriter.delimiter=,",
+						"spring.batch.job.filewriter.names=foo,bar")
+				.run((context) -> {
+					assertThat(context).hasBean("partitionedItemWriter");
+					assertThat(context).doesNotHaveBean("itemWriter");
+
+					JobExecution execution = context.getBean(JobLauncher.class)
+							.run(context.getBean(Job.class), new JobParameters());
+
+					assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+
+					int lines = 0;
+
+					for (int i = 0; i < 3; i++) {
+						File partitionOutput = new File(this.temporaryFolder.getRoot(), "out-partition" + i + ".csv");
+						assertThat(partitionOutput).exists();
+
+						lines += Files.readAllLines(partitionOutput.toPath()).size();
+					}
+
+					assertThat(lines).isEqualTo(99);
+					assertThat(output).doesNotExist();
+				});
+	}
+
 	@EnableBatchProcessing
 	protected static class TestConfiguration {
 	}
@@ -15,25 +15,58 @@
  */
 package org.springframework.batch.autoconfigure;
 
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.NonTransientResourceException;
+import org.springframework.batch.repeat.RepeatStatus;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.autoconfigure.batch.BatchAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 import org.springframework.boot.autoconfigure.jdbc.EmbeddedDataSourceConfiguration;
 import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * @author Michael Minella
@@ -41,6 +74,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 public class ItemProcessorAutoConfigurationTests {
 
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
 			.withConfiguration(AutoConfigurations.of(BatchAutoConfiguration.class,
 					TransactionAutoConfiguration.class,
@@ -154,10 +190,813 @@ public class ItemProcessorAutoConfigurationTests {
 				});
 	}
 
+	@Test
+	public void testPartitionedJob() {
+		this.contextRunner
+				.withUserConfiguration(PartitionedConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.job-name=job1",
+						"spring.batch.job.step-name=step1",
+						"spring.batch.job.chunk-size=2",
+						"spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true",
+						"spring.batch.job.filereader.partitions=4")
+				.run((context) -> {
+					Job job = context.getBean(Job.class);
+					JobLauncher launcher = context.getBean(JobLauncher.class);
+
+					JobExecution execution = launcher.run(job, new JobParameters());
+
+					assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+					assertThat(execution.getStepExecutions()).hasSize(5);
+
+					CountingItemWriter writer = context.getBean(CountingItemWriter.class);
+					assertThat(writer.count.get()).isEqualTo(99);
+					assertThat(writer.keys).hasSize(99);
+				});
+	}
+
+	@Test
+	public void testMultiFileJob() throws Exception {
+		List<String> lines = Files.readAllLines(new ClassPathResource("/data/summaryFile.csv").getFile().toPath());
+		File directory = this.temporaryFolder.newFolder("in");
+
+		Files.write(new File(directory, "part-0.csv").toPath(), lines.subList(0, 10));
+		Files.write(new File(directory, "part-1.csv").toPath(), lines.subList(10, 60));
+		Files.write(new File(directory, "part-2.csv").toPath(), lines.subList(60, 99));
+		Files.write(new File(directory, "other.csv").toPath(), lines.subList(0, 1));
+
+		this.contextRunner
+				.withUserConfiguration(PartitionedConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.job-name=job1",
+						"spring.batch.job.step-name=step1",
+						"spring.batch.job.chunk-size=2",
+						"spring.batch.job.partition-workers=1",
+						"spring.batch.job.filereader.resources=file:" + directory.getAbsolutePath() + "/part-*.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true")
+				.run((context) -> {
+					assertThat(context).hasBean("multiFilePartitioner");
+					assertThat(context).doesNotHaveBean("itemReader");
+
+					Job job = context.getBean(Job.class);
+					JobLauncher launcher = context.getBean(JobLauncher.class);
+
+					JobExecution execution = launcher.run(job, new JobParameters());
+
+					assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+					assertThat(execution.getStepExecutions()).hasSize(4);
+
+					CountingItemWriter writer = context.getBean(CountingItemWriter.class);
+					assertThat(writer.count.get()).isEqualTo(99);
+					assertThat(writer.keys).hasSize(99);
+					assertThat(writer.first.get()).isEqualTo(lines.get(10).split(",")[0]);
+				});
+	}
+
+	@Test
+	public void testKeyRangePartitionedJob() {
+		this.contextRunner
+				.withUserConfiguration(PartitionedConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.job-name=job1",
+						"spring.batch.job.step-name=step1",
+						"spring.batch.job.chunk-size=5",
+						"spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true",
+						"spring.batch.job.filereader.key-field=foo",
+						"spring.batch.job.filereader.key-ranges=..99999,100000..199999,200000..")
+				.run((context) -> {
+					assertThat(context).hasBean("keyRangePartitioner");
+
+					JobExecution execution = context.getBean(JobLauncher.class)
+							.run(context.getBean(Job.class), new JobParameters());
+
+					assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+					assertThat(execution.getStepExecutions()).hasSize(4);
+
+					CountingItemWriter writer = context.getBean(CountingItemWriter.class);
+					assertThat(writer.count.get()).isEqualTo(99);
+					assertThat(writer.keys).hasSize(99);
+
+					for (StepExecution stepExecution : execution.getStepExecutions()) {
+						if(stepExecution.getStepName().contains(":")) {
+							assertThat(stepExecution.getExecutionContext().getInt("fooReader.read.count")).isEqualTo(100);
+						}
+					}
+				});
+	}
+
+	@Test
+	public void testJobRepositoryPartitioning() {
+		String[] properties = { "spring.batch.job.job-name=job1",
+				"spring.batch.job.step-name=step1",
+				"spring.batch.job.chunk-size=5",
+				"spring.batch.job.partitioning.poll-interval=50ms",
+				"spring.batch.job.partitioning.timeout=1m",
+				"spring.batch.job.partition-workers=2",
+				"spring.batch.job.filereader.resource=/data/summaryFile.csv",
+				"spring.batch.job.filereader.name=fooReader",
+				"spring.batch.job.filereader.names=foo,bar",
+				"spring.batch.job.filereader.delimited=true",
+				"spring.batch.job.filereader.key-field=foo",
+				"spring.batch.job.filereader.key-ranges=..99999,100000..199999,200000..",
+				"spring.datasource.url=jdbc:hsqldb:file:" + this.temporaryFolder.getRoot() + "/repository",
+				"spring.datasource.username=sa" };
+
+		ApplicationContextRunner contextRunner = this.contextRunner
+				.withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class))
+				.withUserConfiguration(PartitionedConfiguration.class)
+				.withPropertyValues(properties);
+		ApplicationContextRunner workerRunner = contextRunner
+				.withPropertyValues("spring.batch.job.partitioning.role=worker",
+						"spring.batch.initialize-schema=never");
+
+		contextRunner
+				.withPropertyValues("spring.batch.job.partitioning.role=manager")
+				.run((manager) -> workerRunner.run((worker1) -> workerRunner.run((worker2) -> {
+					assertThat(worker1).doesNotHaveBean(Job.class);
+					assertThat(worker1).hasSingleBean(JobRepositoryPartitionWorker.class);
+
+					JobExecution execution = manager.getBean(JobLauncher.class)
+							.run(manager.getBean(Job.class), new JobParameters());
+
+					assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+					assertThat(execution.getStepExecutions()).hasSize(4);
+
+					StepExecution managerStepExecution = execution.getStepExecutions().stream()
+							.filter((stepExecution) -> stepExecution.getStepName().equals("step1"))
+							.findFirst()
+							.get();
+					assertThat(managerStepExecution.getReadCount()).isEqualTo(99);
+
+					CountingItemWriter writer1 = worker1.getBean(CountingItemWriter.class);
+					CountingItemWriter writer2 = worker2.getBean(CountingItemWriter.class);
+					assertThat(manager.getBean(CountingItemWriter.class).count.get()).isEqualTo(0);
+					assertThat(writer1.count.get() + writer2.count.get()).isEqualTo(99);
+					assertThat(writer1.keys).doesNotContainAnyElementsOf(writer2.keys);
+				})));
+	}
+
+	@Test
+	public void testPartitionedFileWriter() throws Exception {
+		File output = new File(this.temporaryFolder.getRoot(), "out.csv");
+
+		this.contextRunner
+				.withUserConfiguration(EmptyConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.job-name=job1",
+						"spring.batch.job.step-name=step1",
+						"spring.batch.job.chunk-size=5",
+						"spring.batch.job.grid-size=3",
+						"spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true",
+						"spring.batch.job.filereader.partitions=0",
+						"spring.batch.job.filewriter.name=fooWriter",
+						"spring.batch.job.filewriter.resource=file:" + output.getAbsolutePath(),
+						"spring.batch.job.filewriter.delimiter=,",
+						"spring.batch.job.filewriter.names=foo,bar")
+				.run((context) -> {
+					assertThat(context).hasBean("partitionedItemWriter");
+					assertThat(context).doesNotHaveBean("itemWriter");
+
+					JobExecution execution = context.getBean(JobLauncher.class)
+							.run(context.getBean(Job.class), new JobParameters());
+
+					assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+					assertThat(execution.getStepExecutions()).hasSize(4);
+
+					int lines = 0;
+
+					for (int i = 0; i < 3; i++) {
+						File partitionOutput = new File(this.temporaryFolder.getRoot(), "out-partition" + i + ".csv");
+						assertThat(partitionOutput).exists();
+
+						lines += Files.readAllLines(partitionOutput.toPath()).size();
+					}
+
+					assertThat(lines).isEqualTo(99);
+					assertThat(output).doesNotExist();
+				});
+	}
+
+	@Test
+	public void testPrefetchingJob() {
+		this.contextRunner
+				.withUserConfiguration(PartitionedConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.job-name=job1",
+						"spring.batch.job.step-name=step1",
+						"spring.batch.job.chunk-size=2",
+						"spring.batch.job.prefetch-size=5",
+						"spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true")
+				.run((context) -> {
+					JobExecution execution = context.getBean(JobLauncher.class)
+							.run(context.getBean(Job.class), new JobParameters());
+
+					assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+
+					StepExecution stepExecution = execution.getStepExecutions().iterator().next();
+					assertThat(stepExecution.getReadCount()).isEqualTo(99);
+					assertThat(stepExecution.getExecutionContext().getInt("fooReader.read.count")).isEqualTo(100);
+					assertThat(context.getBean(CountingItemWriter.class).keys).hasSize(99);
+
+					ItemStreamReader<Map<Object, Object>> reader =
+							new PrefetchingItemReader<>(context.getBean(ItemStreamReader.class), 5);
+					ExecutionContext executionContext = new ExecutionContext();
+
+					reader.open(executionContext);
+					reader.read();
+					reader.read();
+					reader.update(executionContext);
+					reader.close();
+
+					assertThat(executionContext.getInt("fooReader.read.count")).isEqualTo(2);
+
+					reader.open(executionContext);
+					assertThat(reader.read()).containsEntry("foo", "163323");
+					reader.close();
+				});
+	}
+
+	@Test(timeout = 60000)
+	public void testPartitionedPrefetchingJob() {
+		this.contextRunner
+				.withUserConfiguration(PartitionedConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.job-name=job1",
+						"spring.batch.job.step-name=step1",
+						"spring.batch.job.chunk-size=2",
+						"spring.batch.job.prefetch-size=5",
+						"spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true",
+						"spring.batch.job.filereader.partitions=4")
+				.run((context) -> {
+					JobExecution execution = context.getBean(JobLauncher.class)
+							.run(context.getBean(Job.class), new JobParameters());
+
+					assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+					assertThat(execution.getStepExecutions()).hasSize(5);
+					assertThat(context.getBean(CountingItemWriter.class).keys).hasSize(99);
+				});
+	}
+
+	@Test
+	public void testMultiThreadedJob() {
+		this.contextRunner
+				.withUserConfiguration(PartitionedConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.job-name=job1",
+						"spring.batch.job.step-name=step1",
+						"spring.batch.job.chunk-size=5",
+						"spring.batch.job.concurrency=4",
+						"spring.batch.job.executor.thread-name-prefix=chunk-",
+						"spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true")
+				.run((context) -> {
+					JobExecution execution = context.getBean(JobLauncher.class)
+							.run(context.getBean(Job.class), new JobParameters());
+
+					assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+
+					StepExecution stepExecution = execution.getStepExecutions().iterator().next();
+					assertThat(stepExecution.getReadCount()).isEqualTo(99);
+					assertThat(stepExecution.getWriteCount()).isEqualTo(99);
+
+					CountingItemWriter writer = context.getBean(CountingItemWriter.class);
+					assertThat(writer.keys).hasSize(99);
+					assertThat(writer.threads).allMatch((name) -> name.startsWith("chunk-"));
+
+					ItemStreamReader<Map<Object, Object>> reader =
+							new SynchronizedCheckpointingItemReader<>(context.getBean(ItemStreamReader.class));
+					ExecutionContext executionContext = new ExecutionContext();
+					ExecutorService otherThread = Executors.newSingleThreadExecutor();
+
+					try {
+						reader.open(executionContext);
+						reader.read();
+						reader.read();
+
+						otherThread.submit(() -> {
+							reader.read();
+							reader.read();
+							reader.update(executionContext);
+							return null;
+						}).get();
+
+						assertThat(executionContext.getInt("fooReader.read.count")).isEqualTo(0);
+
+						reader.update(executionContext);
+
+						assertThat(executionContext.getInt("fooReader.read.count")).isEqualTo(4);
+						reader.close();
+					}
+					finally {
+						otherThread.shutdown();
+					}
+				});
+	}
+
+	@Test
+	public void testAsyncItemProcessor() throws Exception {
+		List<String> lines = Files.readAllLines(new ClassPathResource("/data/summaryFile.csv").getFile().toPath());
+
+		this.contextRunner
+				.withUserConfiguration(AsyncProcessorConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.job-name=job1",
+						"spring.batch.job.step-name=step1",
+						"spring.batch.job.chunk-size=10",
+						"spring.batch.job.async-processor-threads=4",
+						"spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true",
+						"spring.batch.job.itemprocessor=slowItemProcessor")
+				.run((context) -> {
+					JobExecution execution = context.getBean(JobLauncher.class)
+							.run(context.getBean(Job.class), new JobParameters());
+
+					assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+
+					SlowItemProcessor processor = context.getBean(SlowItemProcessor.class);
+					assertThat(processor.count.get()).isEqualTo(99);
+					assertThat(processor.threads).allMatch((name) -> name.startsWith("step1-processor-"));
+
+					List<Object> expected = new ArrayList<>();
+
+					for (String line : lines) {
+						String foo = line.split(",")[0];
+
+						if(!foo.endsWith("0")) {
+							expected.add(foo);
+						}
+					}
+
+					assertThat(context.getBean(CountingItemWriter.class).written).isEqualTo(expected);
+				});
+	}
+
+	@Test
+	public void testAsyncItemWriterCancelsFailedChunk() {
+		CompletableFuture<String> failed = new CompletableFuture<>();
+		failed.completeExceptionally(new IllegalStateException("processing failed"));
+		CompletableFuture<String> running = new CompletableFuture<>();
+		List<String> written = new ArrayList<>();
+
+		AsyncItemWriter<String> writer = new AsyncItemWriter<>(written::addAll);
+
+		assertThatThrownBy(() -> writer.write(Arrays.asList(failed, running)))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessage("processing failed");
+		assertThat(running.isCancelled()).isTrue();
+		assertThat(written).isEmpty();
+	}
+
+	@Test
+	public void testPipelineEngine() throws Exception {
+		List<String> lines = Files.readAllLines(new ClassPathResource("/data/summaryFile.csv").getFile().toPath());
+
+		this.contextRunner
+				.withUserConfiguration(AsyncProcessorConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.job-name=job1",
+						"spring.batch.job.step-name=step1",
+						"spring.batch.job.chunk-size=10",
+						"spring.batch.job.engine=pipeline",
+						"spring.batch.job.pipeline.processor-threads=3",
+						"spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true",
+						"spring.batch.job.itemprocessor=slowItemProcessor")
+				.run((context) -> {
+					JobExecution execution = context.getBean(JobLauncher.class)
+							.run(context.getBean(Job.class), new JobParameters());
+
+					assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+
+					SlowItemProcessor processor = context.getBean(SlowItemProcessor.class);
+					assertThat(processor.count.get()).isEqualTo(99);
+					assertThat(processor.threads).allMatch((name) -> name.startsWith("step1-processor-"));
+
+					List<Object> expected = new ArrayList<>();
+
+					for (String line : lines) {
+						String foo = line.split(",")[0];
+
+						if(!foo.endsWith("0")) {
+							expected.add(foo);
+						}
+					}
+
+					CountingItemWriter writer = context.getBean(CountingItemWriter.class);
+					assertThat(writer.written).isEqualTo(expected);
+					assertThat(writer.threads).noneMatch((name) -> name.startsWith("step1-"));
+
+					StepExecution stepExecution = execution.getStepExecutions().iterator().next();
+					assertThat(stepExecution.getReadCount()).isEqualTo(99);
+					assertThat(stepExecution.getWriteCount()).isEqualTo(expected.size());
+					assertThat(stepExecution.getFilterCount()).isEqualTo(99 - expected.size());
+					// the state after the last chunk, including the read that hit the end of the file
+					assertThat(stepExecution.getExecutionContext().getInt("fooReader.read.count")).isEqualTo(100);
+				});
+	}
+
+	@Test
+	public void testPipelineEngineRestart() throws Exception {
+		List<Object> expected = Files.readAllLines(new ClassPathResource("/data/summaryFile.csv").getFile().toPath())
+				.stream()
+				.map((line) -> line.split(",")[0])
+				.collect(Collectors.toList());
+
+		this.contextRunner
+				.withUserConfiguration(FailingWriterConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.job-name=job1",
+						"spring.batch.job.step-name=step1",
+						"spring.batch.job.chunk-size=10",
+						"spring.batch.job.engine=pipeline",
+						"spring.batch.job.pipeline.processor-threads=3",
+						"spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true")
+				.run((context) -> {
+					FailingItemWriter writer = context.getBean(FailingItemWriter.class);
+					writer.failOn = expected.get(55);
+
+					JobExecution execution = context.getBean(JobLauncher.class)
+							.run(context.getBean(Job.class), new JobParameters());
+
+					assertThat(execution.getStatus()).isEqualTo(BatchStatus.FAILED);
+					assertThat(writer.written).isEqualTo(expected.subList(0, 50));
+
+					JobExecution restart = context.getBean(JobLauncher.class)
+							.run(context.getBean(Job.class), new JobParameters());
+
+					assertThat(restart.getJobInstance()).isEqualTo(execution.getJobInstance());
+					assertThat(restart.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+					assertThat(writer.written).isEqualTo(expected);
+				});
+	}
+
+	@Test
+	public void testPipelineEngineRejectsChunkOptions() {
+		ApplicationContextRunner pipelineContextRunner = this.contextRunner
+				.withUserConfiguration(PartitionedConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.job-name=job1",
+						"spring.batch.job.step-name=step1",
+						"spring.batch.job.chunk-size=10",
+						"spring.batch.job.engine=pipeline",
+						"spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true");
+
+		pipelineContextRunner.withPropertyValues("spring.batch.job.adaptive-chunk.target-latency=1s")
+				.run((context) -> assertThat(context).hasFailed());
+		pipelineContextRunner.withPropertyValues("spring.batch.job.async-processor-threads=2")
+				.run((context) -> assertThat(context).hasFailed());
+	}
+
+	@Test(timeout = 60000)
+	public void testPipelineReaderStageFailureWithFullQueue() throws Exception {
+		CountDownLatch failed = new CountDownLatch(1);
+		AtomicInteger reads = new AtomicInteger();
+
+		PipelineTasklet<String, String> tasklet = new PipelineTasklet<>(() -> {
+			if(reads.incrementAndGet() == 1) {
+				return "1";
+			}
+
+			failed.countDown();
+			throw new AssertionError("reader stage failure");
+		}, null, (items) -> { }, 1, 1, 1);
+
+		tasklet.open(new ExecutionContext());
+
+		try {
+			// the first chunk fills the queue before the reader stage fails
+			failed.await();
+			Thread readerThread = (Thread) ReflectionTestUtils.getField(tasklet, "readerThread");
+
+			while (readerThread.getState() != Thread.State.WAITING && readerThread.getState() != Thread.State.TERMINATED) {
+				Thread.sleep(10);
+			}
+
+			StepContribution contribution = new StepExecution("step1", new JobExecution(1L)).createStepContribution();
+
+			assertThat(tasklet.execute(contribution, null)).isEqualTo(RepeatStatus.CONTINUABLE);
+			assertThatThrownBy(() -> tasklet.execute(contribution, null))
+					.isInstanceOf(NonTransientResourceException.class)
+					.hasCauseInstanceOf(AssertionError.class);
+		}
+		finally {
+			tasklet.close();
+		}
+	}
+
+	@Test
+	public void testVirtualThreads() {
+		this.contextRunner
+				.withUserConfiguration(AsyncProcessorConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.job-name=job1",
+						"spring.batch.job.step-name=step1",
+						"spring.batch.job.chunk-size=10",
+						"spring.batch.job.concurrency=3",
+						"spring.batch.job.async-processor-threads=2",
+						"spring.batch.job.virtual-threads=true",
+						"spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true",
+						"spring.batch.job.itemprocessor=slowItemProcessor")
+				.run((context) -> {
+					JobExecution execution = context.getBean(JobLauncher.class)
+							.run(context.getBean(Job.class), new JobParameters());
+
+					assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+
+					SlowItemProcessor processor = context.getBean(SlowItemProcessor.class);
+					assertThat(processor.count.get()).isEqualTo(99);
+					assertThat(processor.threads).allMatch((name) -> name.startsWith("step1-processor-"));
+
+					CountingItemWriter writer = context.getBean(CountingItemWriter.class);
+					assertThat(writer.threads).allMatch((name) -> name.startsWith("step1-"));
+					assertThat(writer.keys).hasSize(writer.count.get());
+					assertThat(writer.keys).noneMatch((key) -> String.valueOf(key).endsWith("0"));
+				});
+	}
+
+	@Test
+	public void testAdaptiveChunkSize() {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		Metrics.addRegistry(meterRegistry);
+
+		try {
+			this.contextRunner
+					.withUserConfiguration(PartitionedConfiguration.class,
+							EmbeddedDataSourceConfiguration.class)
+					.withPropertyValues("spring.batch.job.job-name=job1",
+							"spring.batch.job.step-name=adaptiveStep",
+							"spring.batch.job.chunk-size=2",
+							"spring.batch.job.adaptive-chunk.target-latency=10s",
+							"spring.batch.job.adaptive-chunk.min-size=2",
+							"spring.batch.job.adaptive-chunk.max-size=50",
+							"spring.batch.job.filereader.resource=/data/summaryFile.csv",
+							"spring.batch.job.filereader.name=fooReader",
+							"spring.batch.job.filereader.names=foo,bar",
+							"spring.batch.job.filereader.delimited=true")
+					.run((context) -> {
+						JobExecution execution = context.getBean(JobLauncher.class)
+								.run(context.getBean(Job.class), new JobParameters());
+
+						assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+
+						// 2, 4, 8, 16, 32, then 37 of 50
+						StepExecution stepExecution = execution.getStepExecutions().iterator().next();
+						assertThat(stepExecution.getWriteCount()).isEqualTo(99);
+						assertThat(stepExecution.getCommitCount()).isEqualTo(6);
+
+						assertThat(meterRegistry.get("spring.batch.chunk.size").tag("name", "adaptiveStep")
+								.gauge().value()).isEqualTo(50);
+					});
+		}
+		finally {
+			Metrics.removeRegistry(meterRegistry);
+		}
+
+		AdaptiveChunkSizePolicy policy = new AdaptiveChunkSizePolicy(Duration.ofMillis(100), 1, 100, 64);
+		policy.adjust(Duration.ofSeconds(1).toNanos(), 64);
+
+		assertThat(policy.getSize()).isEqualTo(32);
+	}
+
+	@Test
+	public void testChunkItemProcessor() {
+		ApplicationContextRunner chunkContextRunner = this.contextRunner
+				.withUserConfiguration(ChunkProcessorConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.job-name=job1",
+						"spring.batch.job.step-name=step1",
+						"spring.batch.job.chunk-size=10",
+						"spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true",
+						"spring.batch.job.itemprocessor=chunkItemProcessor");
+
+		chunkContextRunner.withPropertyValues("spring.batch.job.processor-cache.key-fields=foo")
+				.run((context) -> assertThat(context).getFailure()
+						.hasStackTraceContaining("cannot be combined with spring.batch.job.processor-cache.key-fields"));
+		chunkContextRunner.withPropertyValues("spring.batch.job.async-processor-threads=2")
+				.run((context) -> assertThat(context).getFailure()
+						.hasStackTraceContaining("cannot be combined with spring.batch.job.async-processor-threads"));
+
+		chunkContextRunner
+				.run((context) -> {
+					JobExecution execution = context.getBean(JobLauncher.class)
+							.run(context.getBean(Job.class), new JobParameters());
+
+					assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+
+					AtomicInteger calls = context.getBean("chunkCalls", AtomicInteger.class);
+					assertThat(calls.get()).isEqualTo(10);
+
+					CountingItemWriter writer = context.getBean(CountingItemWriter.class);
+					assertThat(writer.keys).isNotEmpty();
+					assertThat(writer.keys).noneMatch((key) -> String.valueOf(key).endsWith("0"));
+					assertThat(writer.count.get()).isEqualTo(writer.keys.size());
+				});
+	}
+
+	@Test
+	public void testFusedItemProcessors() {
+		this.contextRunner
+				.withUserConfiguration(FusedProcessorConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.job-name=job1",
+						"spring.batch.job.step-name=step1",
+						"spring.batch.job.chunk-size=10",
+						"spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true",
+						"spring.batch.job.itemprocessor=concatFunction, slowItemProcessor, functionItemProcessor")
+				.run((context) -> {
+					JobExecution execution = context.getBean(JobLauncher.class)
+							.run(context.getBean(Job.class), new JobParameters());
+
+					assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+
+					StepExecution stepExecution = execution.getStepExecutions().iterator().next();
+					CountingItemWriter writer = context.getBean(CountingItemWriter.class);
+
+					assertThat(context.getBean(SlowItemProcessor.class).count.get()).isEqualTo(99);
+					assertThat(context.getBean(CountingFunction.class).count).isEqualTo(writer.count.get());
+					assertThat(stepExecution.getFilterCount()).isEqualTo(99 - writer.count.get());
+					assertThat(writer.concatenated).isEqualTo(writer.count.get());
+				});
+	}
+
+	@Test
+	public void testCachingItemProcessor() throws Exception {
+		List<String> lines = new ArrayList<>();
+
+		for (int i = 0; i < 200; i++) {
+			lines.add(i + ",code" + (i % 5));
+		}
+
+		File input = this.temporaryFolder.newFile("codes.csv");
+		Files.write(input.toPath(), lines);
+
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		Metrics.addRegistry(meterRegistry);
+
+		try {
+			this.contextRunner
+					.withUserConfiguration(CachingProcessorConfiguration.class,
+							EmbeddedDataSourceConfiguration.class)
+					.withPropertyValues("spring.batch.job.job-name=job1",
+							"spring.batch.job.step-name=cachedStep",
+							"spring.batch.job.chunk-size=10",
+							"spring.batch.job.concurrency=4",
+							"spring.batch.job.processor-cache.key-fields=bar",
+							"spring.batch.job.processor-cache.max-size=4",
+							"spring.batch.job.filereader.resource=file:" + input.getAbsolutePath(),
+							"spring.batch.job.filereader.name=fooReader",
+							"spring.batch.job.filereader.names=foo,bar",
+							"spring.batch.job.filereader.delimited=true",
+							"spring.batch.job.itemprocessor=lookupItemProcessor")
+					.run((context) -> {
+						JobExecution execution = context.getBean(JobLauncher.class)
+								.run(context.getBean(Job.class), new JobParameters());
+
+						assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+
+						double hits = meterRegistry.get("spring.batch.item.processor.cache.gets")
+								.tags("name", "cachedStep", "result", "hit").functionCounter().count();
+						double misses = meterRegistry.get("spring.batch.item.processor.cache.gets")
+								.tags("name", "cachedStep", "result", "miss").functionCounter().count();
+
+						LookupItemProcessor processor = context.getBean(LookupItemProcessor.class);
+						assertThat(hits + misses).isEqualTo(200);
+						assertThat((double) processor.count.get()).isEqualTo(misses);
+						assertThat(processor.count.get()).isLessThan(200);
+
+						CountingItemWriter writer = context.getBean(CountingItemWriter.class);
+						assertThat(writer.count.get()).isEqualTo(160);
+						assertThat(writer.lookups).allSatisfy((foo, name) ->
+								assertThat(name).isEqualTo("name" + (Integer.parseInt((String) foo) % 5)));
+					});
+		}
+		finally {
+			Metrics.removeRegistry(meterRegistry);
+		}
+	}
+
 	@Configuration
 	@EnableBatchProcessing
 	public static class EmptyConfiguration{}
 
+	@Configuration
+	@EnableBatchProcessing
+	public static class PartitionedConfiguration {
+
+		@Bean
+		public CountingItemWriter countingItemWriter() {
+			return new CountingItemWriter();
+		}
+	}
+
+	@Configuration
+	@EnableBatchProcessing
+	public static class FailingWriterConfiguration {
+
+		@Bean
+		public FailingItemWriter failingItemWriter() {
+			return new FailingItemWriter();
+		}
+	}
+
+	/**
+	 * Fails once on the chunk holding the {@code failOn} key, and keeps the keys of the
+	 * other chunks.
+	 */
+	public static class FailingItemWriter implements ItemWriter<Map<Object, Object>> {
+
+		public final List<Object> written = Collections.synchronizedList(new ArrayList<>());
+
+		public volatile Object failOn;
+
+		@Override
+		public void write(List<? extends Map<Object, Object>> items) {
+			List<Object> keys = items.stream().map((item) -> item.get("foo")).collect(Collectors.toList());
+
+			if(failOn != null && keys.contains(failOn)) {
+				failOn = null;
+				throw new IllegalStateException("Failing on " + keys);
+			}
+
+			written.addAll(keys);
+		}
+	}
+
+	public static class CountingItemWriter implements ItemWriter<Map<Object, Object>> {
+
+		public final AtomicInteger count = new AtomicInteger();
+
+		public final Set<Object> keys = ConcurrentHashMap.newKeySet();
+
+		public final AtomicReference<Object> first = new AtomicReference<>();
+
+		public final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+		public final List<Object> written = Collections.synchronizedList(new ArrayList<>());
+
+		public int concatenated;
+
+		public final Map<Object, Object> lookups = new ConcurrentHashMap<>();
+
+		@Override
+		public void write(List<? extends Map<Object, Object>> items) {
+			count.addAndGet(items.size());
+			threads.add(Thread.currentThread().getName());
+			first.compareAndSet(null, items.get(0).get("foo"));
+
+			for (Map<Object, Object> item : items) {
+				keys.add(item.get("foo"));
+				written.add(item.get("foo"));
+
+				if(item.containsKey("baz")) {
+					concatenated++;
+				}
+
+				if(item.containsKey("name")) {
+					lookups.put(item.get("foo"), item.get("name"));
+				}
+			}
+		}
+	}
+
 	@Configuration
 	@EnableBatchProcessing
 	public static class ItemProcessorConfiguration {
@@ -168,6 +1007,90 @@ public class ItemProcessorAutoConfigurationTests {
 		}
 	}
 
+	@Configuration
+	@EnableBatchProcessing
+	public static class AsyncProcessorConfiguration {
+
+		@Bean
+		public CountingItemWriter countingItemWriter() {
+			return new CountingItemWriter();
+		}
+
+		@Bean
+		public SlowItemProcessor slowItemProcessor() {
+			return new SlowItemProcessor();
+		}
+	}
+
+	@Configuration
+	@EnableBatchProcessing
+	public static class ChunkProcessorConfiguration {
+
+		@Bean
+		public CountingItemWriter countingItemWriter() {
+			return new CountingItemWriter();
+		}
+
+		@Bean
+		public AtomicInteger chunkCalls() {
+			return new AtomicInteger();
+		}
+
+		@Bean
+		public ChunkItemProcessor<Map<Object, Object>, Map<Object, Object>> chunkItemProcessor() {
+			return (items) -> {
+				chunkCalls().incrementAndGet();
+
+				return items.stream()
+						.filter((item) -> !String.valueOf(item.get("foo")).endsWith("0"))
+						.collect(Collectors.toList());
+			};
+		}
+	}
+
+	@Configuration
+	@EnableBatchProcessing
+	public static class FusedProcessorConfiguration {
+
+		@Bean
+		public CountingItemWriter countingItemWriter() {
+			return new CountingItemWriter();
+		}
+
+		@Bean
+		public Function<Map<Object, Object>, Map<Object, Object>> concatFunction() {
+			return (item) -> {
+				item.put("baz", item.get("foo") + ":" + item.get("bar"));
+				return item;
+			};
+		}
+
+		@Bean
+		public SlowItemProcessor slowItemProcessor() {
+			return new SlowItemProcessor();
+		}
+
+		@Bean
+		public CountingFunction functionItemProcessor() {
+			return new CountingFunction();
+		}
+	}
+
+	@Configuration
+	@EnableBatchProcessing
+	public static class CachingProcessorConfiguration {
+
+		@Bean
+		public CountingItemWriter countingItemWriter() {
+			return new CountingItemWriter();
+		}
+
+		@Bean
+		public LookupItemProcessor lookupItemProcessor() {
+			return new LookupItemProcessor();
+		}
+	}
+
 	@Configuration
 	@EnableBatchProcessing
 	public static class FunctionConfiguration {
@@ -190,6 +1113,48 @@ public class ItemProcessorAutoConfigurationTests {
 		}
 	}
 
+	/**
+	 * Takes a millisecond per item and filters the items with a key ending in 0.
+	 */
+	public static class SlowItemProcessor implements ItemProcessor<Map<Object, Object>, Map<Object, Object>> {
+
+		public final AtomicInteger count = new AtomicInteger();
+
+		public final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+		@Override
+		public Map<Object, Object> process(Map<Object, Object> item) throws Exception {
+			count.incrementAndGet();
+			threads.add(Thread.currentThread().getName());
+			Thread.sleep(1);
+
+			return String.valueOf(item.get("foo")).endsWith("0") ? null : item;
+		}
+	}
+
+	/**
+	 * Replaces the code in bar by a name and filters code4.
+	 */
+	public static class LookupItemProcessor implements ItemProcessor<Map<Object, Object>, Map<Object, Object>> {
+
+		public final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Map<Object, Object> process(Map<Object, Object> item) {
+			count.incrementAndGet();
+
+			String code = (String) item.remove("bar");
+
+			if(code.equals("code4")) {
+				return null;
+			}
+
+			item.put("name", "name" + code.substring(4));
+
+			return item;
+		}
+	}
+
 	public static class CountingFunction implements Function<Map<Object, Object>, Map<Object, Object>> {
 
 		public int count = 0;
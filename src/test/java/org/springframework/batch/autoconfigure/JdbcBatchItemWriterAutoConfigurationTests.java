@@ -15,18 +15,52 @@
  */
 package org.springframework.batch.autoconfigure;
 
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.sql.DataSource;
+
 import org.junit.Test;
 
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.database.JdbcBatchItemWriter;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.autoconfigure.batch.BatchAutoConfiguration;
 import org.springframework.boot.autoconfigure.jdbc.EmbeddedDataSourceConfiguration;
 import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * @author Michael Minella
@@ -77,8 +111,441 @@ public class JdbcBatchItemWriterAutoConfigurationTests {
 				});
 	}
 
+	@Test
+	public void testWriterTypeDependsOnWrapping() {
+		this.contextRunner
+				.withUserConfiguration(TestConfiguration.class,
+						WriterConsumerConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.jdbcwriter.sql=INSERT INTO FOO VALUES ?, ?",
+						"spring.batch.job.jdbcwriter.names=one,two")
+				.run((context) -> assertThat(context).hasNotFailed()
+						.getBean("consumer").isSameAs(context.getBean("writer")));
+
+		this.contextRunner
+				.withUserConfiguration(TestConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.jdbcwriter.sql=INSERT INTO FOO VALUES ?, ?",
+						"spring.batch.job.jdbcwriter.names=one,two",
+						"spring.batch.job.jdbcwriter.key-fields=one")
+				.run((context) -> {
+					assertThat(context).hasSingleBean(ItemWriter.class);
+					assertThat(context).doesNotHaveBean(JdbcBatchItemWriter.class);
+					assertThat(context.getBean("writer")).isInstanceOf(DeduplicatingItemWriter.class);
+				});
+	}
+
+	@Test
+	public void testPreparedStatementSetterBindsByPosition() throws Exception {
+		JdbcBatchItemWriterAutoConfiguration.MapPreparedStatementSetter setter =
+				new JdbcBatchItemWriterAutoConfiguration.MapPreparedStatementSetter(new String[] {"two", "one"});
+
+		PreparedStatement mapStatement = mock(PreparedStatement.class);
+		Map<Object, Object> map = new HashMap<>();
+		map.put("one", "1");
+		map.put("two", "2");
+
+		setter.setValues(map, mapStatement);
+
+		verify(mapStatement).setObject(1, "2");
+		verify(mapStatement).setObject(2, "1");
+
+		PreparedStatement recordStatement = mock(PreparedStatement.class);
+		IndexedRecord record = new IndexedRecord(new IndexedRecord.Schema(new String[] {"one", "two"}), new Object[] {"1", "2"});
+
+		setter.setValues(record, recordStatement);
+
+		verify(recordStatement).setObject(1, "2");
+		verify(recordStatement).setObject(2, "1");
+	}
+
+	@Test
+	public void testPreparedStatementSetterUsesColumnTypes() throws Exception {
+		JdbcBatchItemWriterAutoConfiguration.MapPreparedStatementSetter setter =
+				new JdbcBatchItemWriterAutoConfiguration.MapPreparedStatementSetter(new String[] {"id", "amount", "name"});
+
+		IndexedRecord.Schema schema = new IndexedRecord.Schema(new String[] {"id", "amount", "name"},
+				new ColumnType[] {ColumnType.LONG, ColumnType.DECIMAL, ColumnType.STRING});
+		PreparedStatement recordStatement = mock(PreparedStatement.class);
+
+		setter.setValues(new IndexedRecord(schema, new Object[] {5L, null, "foo"}), recordStatement);
+
+		verify(recordStatement).setLong(1, 5L);
+		verify(recordStatement).setNull(2, Types.DECIMAL);
+		verify(recordStatement).setString(3, "foo");
+
+		Map<Object, Object> map = new HashMap<>();
+		map.put("id", 5L);
+		map.put("amount", new BigDecimal("1.50"));
+		map.put("name", "foo");
+		PreparedStatement mapStatement = mock(PreparedStatement.class);
+
+		setter.setValues(map, mapStatement);
+
+		verify(mapStatement).setLong(1, 5L);
+		verify(mapStatement).setBigDecimal(2, new BigDecimal("1.50"));
+		verify(mapStatement).setObject(3, "foo");
+	}
+
+	@Test
+	public void testPreparedStatementSetterUsesParameterTypes() throws Exception {
+		JdbcBatchItemWriterAutoConfiguration.MapPreparedStatementSetter setter =
+				new JdbcBatchItemWriterAutoConfiguration.MapPreparedStatementSetter(new String[] {"id", "amount", "name", "day"},
+						Collections.singletonMap("day", ColumnType.DATE));
+
+		ParameterMetaData metaData = mock(ParameterMetaData.class);
+		when(metaData.getParameterCount()).thenReturn(4);
+		when(metaData.getParameterType(1)).thenReturn(Types.BIGINT);
+		when(metaData.getParameterType(2)).thenReturn(Types.DECIMAL);
+		when(metaData.getParameterType(3)).thenReturn(Types.VARCHAR);
+		when(metaData.getParameterType(4)).thenReturn(Types.VARCHAR);
+
+		PreparedStatement statement = mock(PreparedStatement.class);
+		when(statement.getParameterMetaData()).thenReturn(metaData);
+
+		Map<Object, Object> map = new HashMap<>();
+		map.put("id", "5");
+		map.put("name", "foo");
+		map.put("day", "2019-06-30");
+
+		setter.setValues(map, statement);
+		setter.setValues(map, statement);
+
+		verify(statement, times(2)).setLong(1, 5L);
+		verify(statement, times(2)).setNull(2, Types.DECIMAL);
+		verify(statement, times(2)).setString(3, "foo");
+		verify(statement, times(2)).setDate(4, Date.valueOf("2019-06-30"));
+		verify(statement).getParameterMetaData();
+	}
+
+	@Test
+	public void testPreparedStatementSetterLeavesUnparsedStringsToTheDriver() throws Exception {
+		ParameterMetaData metaData = mock(ParameterMetaData.class);
+		when(metaData.getParameterCount()).thenReturn(3);
+		when(metaData.getParameterType(1)).thenReturn(Types.BOOLEAN);
+		when(metaData.getParameterType(2)).thenReturn(Types.TIMESTAMP);
+		when(metaData.getParameterType(3)).thenReturn(Types.BOOLEAN);
+
+		PreparedStatement statement = mock(PreparedStatement.class);
+		when(statement.getParameterMetaData()).thenReturn(metaData);
+
+		Map<Object, Object> map = new HashMap<>();
+		map.put("active", "Y");
+		map.put("updated", "2019-06-30 10:00:00");
+		map.put("deleted", "false");
+
+		JdbcBatchItemWriterAutoConfiguration.MapPreparedStatementSetter setter =
+				new JdbcBatchItemWriterAutoConfiguration.MapPreparedStatementSetter(new String[] {"active", "updated", "deleted"});
+		setter.setValues(map, statement);
+
+		verify(statement).setObject(1, "Y");
+		verify(statement).setObject(2, "2019-06-30 10:00:00");
+		verify(statement).setBoolean(3, false);
+
+		// the columns that did not parse are left to the driver without parsing again
+		map.put("active", "true");
+		map.put("deleted", "true");
+		setter.setValues(map, statement);
+
+		verify(statement).setObject(1, "true");
+		verify(statement).setBoolean(3, true);
+
+		JdbcBatchItemWriterAutoConfiguration.MapPreparedStatementSetter configured =
+				new JdbcBatchItemWriterAutoConfiguration.MapPreparedStatementSetter(new String[] {"active", "updated", "deleted"},
+						Collections.singletonMap("active", ColumnType.BOOLEAN));
+
+		map.put("active", "Y");
+		assertThatThrownBy(() -> configured.setValues(map, statement)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testMultiRowInsert() {
+		assertThat(MultiRowInsertItemWriter.isRewritable("INSERT INTO FOO (ID, NAME) VALUES (?, UPPER(?))")).isTrue();
+		assertThat(MultiRowInsertItemWriter.isRewritable("INSERT INTO FOO VALUES (?, ?), (?, ?)")).isFalse();
+		assertThat(MultiRowInsertItemWriter.isRewritable("INSERT INTO FOO SELECT * FROM BAR WHERE ID = ?")).isFalse();
+		assertThat(MultiRowInsertItemWriter.isRewritable("INSERT INTO FOO VALUES (:id, :name)")).isFalse();
+
+		this.contextRunner
+				.withUserConfiguration(TestConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.jdbcwriter.sql=INSERT INTO FOO (ID, NAME) VALUES (?, UPPER(?))",
+						"spring.batch.job.jdbcwriter.names=id,name",
+						"spring.batch.job.jdbcwriter.rows-per-insert=4")
+				.run((context) -> {
+					JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+					jdbcTemplate.execute("CREATE TABLE FOO (ID INTEGER PRIMARY KEY, NAME VARCHAR(10))");
+
+					ItemWriter<Map<Object, Object>> writer = context.getBean("writer", ItemWriter.class);
+					assertThat(writer).isInstanceOf(MultiRowInsertItemWriter.class);
+
+					writer.write(items(1, 10));
+
+					assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM FOO", Integer.class)).isEqualTo(10);
+					assertThat(jdbcTemplate.queryForObject("SELECT NAME FROM FOO WHERE ID = 10", String.class)).isEqualTo("NAME10");
+				});
+	}
+
+	@Test
+	public void testParallelConnections() {
+		this.contextRunner
+				.withUserConfiguration(TestConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.jdbcwriter.sql=INSERT INTO FOO (ID, NAME) VALUES (?, ?)",
+						"spring.batch.job.jdbcwriter.names=id,name",
+						"spring.batch.job.jdbcwriter.parallel.connections=3",
+						"spring.batch.job.jdbcwriter.parallel.routing-keys=id")
+				.run((context) -> {
+					JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+					jdbcTemplate.execute("SET DATABASE TRANSACTION CONTROL MVCC");
+					jdbcTemplate.execute("CREATE TABLE FOO (ID INTEGER PRIMARY KEY, NAME VARCHAR(10))");
+
+					ItemWriter<Map<Object, Object>> writer = context.getBean("writer", ItemWriter.class);
+					assertThat(writer).isInstanceOf(ParallelJdbcItemWriter.class);
+
+					writer.write(items(1, 30));
+
+					assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM FOO", Integer.class)).isEqualTo(30);
+
+					// 30 is already there, so none of the sub-batches is committed
+					assertThatThrownBy(() -> writer.write(items(30, 45))).isInstanceOf(DataIntegrityViolationException.class);
+					assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM FOO", Integer.class)).isEqualTo(30);
+				});
+	}
+
+	@Test
+	public void testParallelConnectionsWithConcurrentChunks() {
+		this.contextRunner
+				.withUserConfiguration(TestConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.concurrency=2",
+						"spring.batch.job.jdbcwriter.sql=INSERT INTO FOO (ID, NAME) VALUES (?, ?)",
+						"spring.batch.job.jdbcwriter.names=id,name",
+						"spring.batch.job.jdbcwriter.parallel.connections=3")
+				.run((context) -> {
+					ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(
+							context.getBean("writer"), "executor");
+					assertThat(executor.getMaximumPoolSize()).isEqualTo(6);
+
+					// every sub-batch of both chunks waits for the others before it is written
+					CountDownLatch started = new CountDownLatch(4);
+					ParallelJdbcItemWriter writer = new ParallelJdbcItemWriter((items) -> {
+						started.countDown();
+						assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+					}, context.getBean(DataSource.class), 2, 2, null, Duration.ofSeconds(30));
+
+					ExecutorService chunks = Executors.newFixedThreadPool(2);
+
+					try {
+						Future<?> first = chunks.submit(() -> {
+							writer.write(items(1, 10));
+							return null;
+						});
+						Future<?> second = chunks.submit(() -> {
+							writer.write(items(11, 20));
+							return null;
+						});
+
+						first.get();
+						second.get();
+					}
+					finally {
+						chunks.shutdownNow();
+						writer.destroy();
+					}
+				});
+	}
+
+	@Test
+	public void testDeduplicatedUpsert() {
+		this.contextRunner
+				.withUserConfiguration(TestConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.jdbcwriter.sql=MERGE INTO FOO " +
+								"USING (VALUES (CAST(? AS INTEGER), CAST(? AS VARCHAR(10)))) AS V (ID, NAME) ON FOO.ID = V.ID " +
+								"WHEN MATCHED THEN UPDATE SET FOO.NAME = V.NAME " +
+								"WHEN NOT MATCHED THEN INSERT VALUES (V.ID, V.NAME)",
+						"spring.batch.job.jdbcwriter.names=id,name",
+						"spring.batch.job.jdbcwriter.key-fields=id")
+				.run((context) -> {
+					JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+					jdbcTemplate.execute("CREATE TABLE FOO (ID INTEGER PRIMARY KEY, NAME VARCHAR(10))");
+					jdbcTemplate.update("INSERT INTO FOO VALUES (1, 'old')");
+
+					DeduplicatingItemWriter writer = context.getBean("writer", DeduplicatingItemWriter.class);
+
+					List<Map<Object, Object>> items = items(1, 3);
+					items.addAll(items(1, 2));
+					items.get(3).put("name", "last1");
+					items.get(4).put("name", "last2");
+
+					assertThat(writer.deduplicate(items)).extracting((item) -> item.get("name"))
+							.containsExactly("last1", "last2", "name3");
+
+					writer.write(items);
+
+					assertThat(jdbcTemplate.queryForList("SELECT NAME FROM FOO ORDER BY ID", String.class))
+							.containsExactly("last1", "last2", "name3");
+				});
+	}
+
+	@Test
+	public void testDeduplicatedParallelWriterIsDestroyed() {
+		AtomicReference<ExecutorService> executor = new AtomicReference<>();
+
+		this.contextRunner
+				.withUserConfiguration(TestConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.jdbcwriter.sql=INSERT INTO FOO (ID, NAME) VALUES (?, ?)",
+						"spring.batch.job.jdbcwriter.names=id,name",
+						"spring.batch.job.jdbcwriter.key-fields=id",
+						"spring.batch.job.jdbcwriter.parallel.connections=3")
+				.run((context) -> {
+					Object writer = context.getBean("writer");
+					assertThat(writer).isInstanceOf(DeduplicatingItemWriter.class);
+
+					executor.set((ExecutorService) ReflectionTestUtils.getField(
+							ReflectionTestUtils.getField(writer, "delegate"), "executor"));
+					assertThat(executor.get().isShutdown()).isFalse();
+				});
+
+		assertThat(executor.get().isShutdown()).isTrue();
+	}
+
+	@Test
+	public void testStagingTableAppliedAtStepEnd() {
+		this.contextRunner
+				.withConfiguration(AutoConfigurations.of(FlatFileItemReaderAutoConfiguration.class,
+						SingleStepAutoConfiguration.class))
+				.withUserConfiguration(TestConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.job-name=job1",
+						"spring.batch.job.step-name=step1",
+						"spring.batch.job.chunk-size=10",
+						"spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true",
+						"spring.batch.job.jdbcwriter.names=foo,bar",
+						"spring.batch.job.jdbcwriter.staging.table=STAGE",
+						"spring.batch.job.jdbcwriter.staging.apply=step",
+						"spring.batch.job.jdbcwriter.sql=MERGE INTO TARGET USING STAGE ON TARGET.ID = STAGE.FOO " +
+								"WHEN MATCHED THEN UPDATE SET TARGET.AMOUNT = STAGE.BAR " +
+								"WHEN NOT MATCHED THEN INSERT VALUES (STAGE.FOO, STAGE.BAR)")
+				.run((context) -> {
+					JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+					jdbcTemplate.execute("CREATE TABLE TARGET (ID INTEGER PRIMARY KEY, AMOUNT DECIMAL(10, 2))");
+					jdbcTemplate.execute("CREATE TABLE STAGE (FOO INTEGER, BAR DECIMAL(10, 2))");
+					jdbcTemplate.update("INSERT INTO TARGET VALUES (108554, 0)");
+					jdbcTemplate.update("INSERT INTO STAGE VALUES (1, 1)");
+
+					JobExecution execution = context.getBean(JobLauncher.class)
+							.run(context.getBean(Job.class), new JobParameters());
+
+					assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+					assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM TARGET", Integer.class)).isEqualTo(99);
+					assertThat(jdbcTemplate.queryForObject("SELECT AMOUNT FROM TARGET WHERE ID = 108554", BigDecimal.class))
+							.isEqualByComparingTo("-4149.14");
+					assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM STAGE", Integer.class)).isEqualTo(0);
+				});
+	}
+
+	@Test
+	public void testStagingTableAppliedOnceOnRestart() {
+		this.contextRunner
+				.withConfiguration(AutoConfigurations.of(FlatFileItemReaderAutoConfiguration.class,
+						SingleStepAutoConfiguration.class))
+				.withUserConfiguration(TestConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.job-name=job1",
+						"spring.batch.job.step-name=step1",
+						"spring.batch.job.chunk-size=10",
+						"spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true",
+						"spring.batch.job.jdbcwriter.names=foo,bar",
+						"spring.batch.job.jdbcwriter.staging.table=STAGE",
+						"spring.batch.job.jdbcwriter.staging.apply=step",
+						"spring.batch.job.jdbcwriter.sql=INSERT INTO TARGET SELECT FOO, BAR FROM STAGE")
+				.run((context) -> {
+					JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+					jdbcTemplate.execute("CREATE TABLE STAGE (FOO INTEGER, BAR DECIMAL(10, 2))");
+
+					JobLauncher jobLauncher = context.getBean(JobLauncher.class);
+					JobExecution execution = jobLauncher.run(context.getBean(Job.class), new JobParameters());
+
+					// the target table does not exist yet, so applying the staged rows fails
+					assertThat(execution.getStatus()).isEqualTo(BatchStatus.FAILED);
+					assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM STAGE", Integer.class)).isEqualTo(99);
+
+					jdbcTemplate.execute("CREATE TABLE TARGET (ID INTEGER, AMOUNT DECIMAL(10, 2))");
+
+					execution = jobLauncher.run(context.getBean(Job.class), new JobParameters());
+
+					assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+					assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM TARGET", Integer.class)).isEqualTo(99);
+					assertThat(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT ID) FROM TARGET", Integer.class)).isEqualTo(99);
+					assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM STAGE", Integer.class)).isEqualTo(0);
+				});
+	}
+
+	@Test
+	public void testStagingTableAppliedPerStepRejectsPartitions() {
+		this.contextRunner
+				.withConfiguration(AutoConfigurations.of(FlatFileItemReaderAutoConfiguration.class,
+						SingleStepAutoConfiguration.class))
+				.withUserConfiguration(TestConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.job-name=job1",
+						"spring.batch.job.step-name=step1",
+						"spring.batch.job.chunk-size=10",
+						"spring.batch.job.filereader.resource=/data/summaryFile.csv",
+						"spring.batch.job.filereader.name=fooReader",
+						"spring.batch.job.filereader.names=foo,bar",
+						"spring.batch.job.filereader.delimited=true",
+						"spring.batch.job.filereader.partitions=4",
+						"spring.batch.job.jdbcwriter.names=foo,bar",
+						"spring.batch.job.jdbcwriter.staging.table=STAGE",
+						"spring.batch.job.jdbcwriter.staging.apply=step",
+						"spring.batch.job.jdbcwriter.sql=INSERT INTO TARGET SELECT FOO, BAR FROM STAGE")
+				.run((context) -> assertThat(context).getFailure()
+						.hasStackTraceContaining("staging.apply=step cannot be combined with a partitioned step"));
+
+		this.contextRunner
+				.withUserConfiguration(TestConfiguration.class,
+						EmbeddedDataSourceConfiguration.class)
+				.withPropertyValues("spring.batch.job.partitioning.role=worker",
+						"spring.batch.job.jdbcwriter.names=foo,bar",
+						"spring.batch.job.jdbcwriter.staging.table=STAGE",
+						"spring.batch.job.jdbcwriter.staging.apply=step",
+						"spring.batch.job.jdbcwriter.sql=INSERT INTO TARGET SELECT FOO, BAR FROM STAGE")
+				.run((context) -> assertThat(context).getFailure()
+						.hasStackTraceContaining("staging.apply=step cannot be combined with a partitioned step"));
+	}
+
+	private static List<Map<Object, Object>> items(int first, int last) {
+		List<Map<Object, Object>> items = new ArrayList<>();
+
+		for (int i = first; i <= last; i++) {
+			Map<Object, Object> item = new HashMap<>();
+			item.put("id", String.valueOf(i));
+			item.put("name", "name" + i);
+			items.add(item);
+		}
+
+		return items;
+	}
+
 	@EnableBatchProcessing
 	protected static class TestConfiguration {
 	}
 
+	protected static class WriterConsumerConfiguration {
+
+		@Bean
+		public Object consumer(JdbcBatchItemWriter<Map<Object, Object>> writer) {
+			return writer;
+		}
+	}
+
 }